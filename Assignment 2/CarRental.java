@@ -1,33 +1,41 @@
 package dsa;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
-import java.util.Scanner;
-
-import static java.util.Collections.swap;
+import java.util.NoSuchElementException;
 
 public class CarRental {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException {
         Graph<Pair<String, Double>, Double, String, Double> graph = new Graph<>();
-        Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        for (int i = 0; i <= n; i++) {
-            String[] tmp = sc.nextLine().split(" ");
-            switch (tmp[0]) {
-                case "PRINT_MIN":
-                    graph.msf();
-                    System.out.println();
+        FastReader reader = args.length > 0 ? new FastReader(Path.of(args[0])) : new FastReader(System.in);
+        FastWriter writer = new FastWriter(System.out);
+        int n = reader.nextInt();
+        for (int i = 0; i < n; i++) {
+            // Commands are distinguished by their first letter: PRINT_MIN, ADD and CONNECT
+            int command = reader.peek();
+            reader.skipToken();
+            switch (command) {
+                case 'P':
+                    graph.msf(writer);
+                    writer.println();
                     break;
-                case "ADD":
-                    graph.insertVertex(new Pair<>(tmp[1], Double.parseDouble(tmp[2])));
+                case 'A':
+                    String name = reader.next();
+                    graph.insertVertex(new Pair<>(name, reader.nextDouble()));
                     break;
-                case "CONNECT":
+                case 'C':
                     // Retrieving vertices hashmap to get vertices by their name and insert corresponding edge
                     var vertices = graph.getVertices();
-                    graph.insertEdge(vertices.get(tmp[1]), vertices.get(tmp[2]), Double.parseDouble(tmp[3]));
+                    var from = vertices.get(reader.next());
+                    var to = vertices.get(reader.next());
+                    graph.insertEdge(from, to, reader.nextDouble());
                     break;
             }
         }
+        writer.flush();
     }
 }
 
@@ -149,37 +157,38 @@ class Graph<V extends Pair<K, P>, E extends Number, K, P extends Number & Compar
     }
 
     // Method to run prims' algorithm with each unvisited vertex, in order to find minimum spanning forest
-    public void msf() {
+    public void msf(FastWriter out) {
         boolean[] visited = new boolean[currentIndex + 1];
         for (int i = 0; i < currentIndex; i++) {
-            if (!visited[i]) prim(i, visited);
+            if (!visited[i]) prim(i, visited, out);
         }
     }
 
     // Prims' algorithm based on priority queue of edges
-    private void prim(int currentVertex, boolean[] visited) {
+    private void prim(int currentVertex, boolean[] visited, FastWriter out) {
         // Marking current vertex as visited
         visited[currentVertex] = true;
-        PriorityQueue<Double, Edge<V, E>> queue = new PriorityQueue<>();
+        DoubleKeyPriorityQueue<Edge<V, E>> queue = new DoubleKeyPriorityQueue<>();
         // Adding incident edges of vertex in priority queue
         insertInQueue(currentVertex, queue);
 
         while (!queue.isEmpty()) {
             // Extracting minimum edge from priority queue
-            Edge<V, E> edge = queue.extractMin().value;
+            Edge<V, E> edge = queue.extractMin();
             Vertex<V> from = edge.getVertexFrom();
             Vertex<V> to = edge.getVertexTo();
             // Switching to the next vertex to find its incident edges
             int nextVertex = to.getIndex();
             if (!visited[nextVertex]) {
-                System.out.print(from.getVertex().getValue() + ":" + to.getVertex().getValue() + " ");
+                out.print(String.valueOf(from.getVertex().getValue())).print(':')
+                        .print(String.valueOf(to.getVertex().getValue())).print(' ');
                 visited[nextVertex] = true;
                 int count = 0;
                 for (int i = 0; count < to.degree && i < currentIndex; i++) {
                     Edge<V, E> e = adjacencyMatrix.get(nextVertex).get(i);
                     if (e != null) {
                         count++;
-                        queue.insert(queue.new BNode(e.getWeight().doubleValue(), e));
+                        queue.insert(e.getWeight().doubleValue(), e);
                     }
                 }
             }
@@ -188,13 +197,13 @@ class Graph<V extends Pair<K, P>, E extends Number, K, P extends Number & Compar
     }
 
     // Method to insert incident edges of vertex in priority queue
-    private void insertInQueue(int index, PriorityQueue<Double, Edge<V, E>> queue) {
+    private void insertInQueue(int index, DoubleKeyPriorityQueue<Edge<V, E>> queue) {
         int count = 0;
         for (int i = 0; count < verticesIndex.get(index).degree && i < currentIndex; i++) {
             Edge<V, E> e = adjacencyMatrix.get(index).get(i);
             if (e != null) {
                 count++;
-                queue.insert(queue.new BNode(e.getWeight().doubleValue(), e));
+                queue.insert(e.getWeight().doubleValue(), e);
             }
         }
     }
@@ -263,174 +272,99 @@ interface IGraph<V, E extends Number> {
 
 }
 
-// PriorityQueue from previous task, slightly modified version (removed comparisons of values if keys are equal)
-class PriorityQueue<K extends Comparable<K>, V> implements IPriorityQueue<K, V, PriorityQueue<K, V>.BNode> {
-    private final ArrayList<BNode> minHeap = new ArrayList<>();
-
-    public class BNode extends Node<K, V> {
-        BNode(K key, V value) {
-            this.key = key;
-            this.value = value;
+/*
+ Binary min-heap with primitive double keys, stored as parallel arrays of keys and values (used by prim instead of boxed Double keys).
+ Nothing is boxed or allocated on insert (except for growing arrays), ties between equal keys are broken by values
+ */
+class DoubleKeyPriorityQueue<V extends Comparable<? super V>> {
+    private double[] keys;
+    private V[] values;
+    private int size;
+
+    public DoubleKeyPriorityQueue() {
+        this(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    public DoubleKeyPriorityQueue(int capacity) {
+        keys = new double[Math.max(capacity, 1)];
+        values = (V[]) new Comparable<?>[keys.length];
+    }
+
+    public void insert(double key, V value) {
+        if (size == keys.length) grow();
+        int i = size++;
+        // Moving parents down instead of swapping, so the new element is written only once
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(key, value, keys[parent], values[parent])) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
         }
+        keys[i] = key;
+        values[i] = value;
     }
 
-    public PriorityQueue() {
-    }
-
-
-    private int parent(int i) {
-        // Retrieving parent of current element
-        return ((i - 1) / 2);
-    }
-
-    private int left(int i) {
-        // Retrieving left child of current element
-        return (2 * i) + 1;
-    }
-
-    private int right(int i) {
-        // Retrieving right child of current element
-        return (2 * i) + 2;
-    }
-
-    private void minHeapify(int i) {
-        int left = left(i);
-        int right = right(i);
-
-        int smallest = i;
-
-        if (left < size()) {
-            BNode currentElement = minHeap.get(i);
-            BNode leftElement = minHeap.get(left);
-            if (less(leftElement.key, currentElement.key)) {
-                smallest = left;
-            }
-        }
-
-        if (right < size()) {
-            BNode rightElement = minHeap.get(right);
-            if (less(rightElement.key, minHeap.get(smallest).key)) {
-                smallest = right;
-            }
-        }
-
-        if (smallest != i) {
-            // Swapping current element with the next found smaller element
-            swap(minHeap, i, smallest);
-            minHeapify(smallest);
-        }
-    }
-
-    public void insert(BNode item) {
-        minHeap.add(item);
-        int i = size() - 1;
-        // Swapping current and parent elements if current element key is lower than parent's
-        // in case if those elements are equal, we compare their values
-        while (i > 0 && less(minHeap.get(i).key, minHeap.get(parent(i)).key)) {
-            swap(minHeap, i, parent(i));
-            i = parent(i);
-        }
+    public double minKey() {
+        checkNotEmpty();
+        return keys[0];
     }
 
-    public BNode findMin() {
-        return minHeap.get(0);
+    public V minValue() {
+        checkNotEmpty();
+        return values[0];
     }
 
-    public BNode extractMin() {
-        BNode min = findMin();
-        // Retrieving min element, which is located in the root
-        minHeap.set(0, minHeap.get(size() - 1));
+    public V extractMin() {
+        V min = minValue();
         // Replacing min element with the last one, to then restore the heap
-        minHeap.remove(size() - 1);
-        minHeapify(0);
+        int last = --size;
+        double key = keys[last];
+        V value = values[last];
+        values[last] = null;
+        if (last > 0) siftDown(key, value);
 
         return min;
     }
 
-    public void decreaseKey(BNode item, K newKey) {
-        // Deleting the previous occurrence of current item
-        delete(item);
-        // Creating new item with the new key and previous item value
-        BNode newItem = new BNode(newKey, item.value);
-        insert(newItem);
-    }
-
-    public void delete(BNode item) {
-        // Finding the index of item in the heap
-        int i = findIndexOfItem(item);
-
-        // Deleting the item
-        BNode tmp = minHeap.get(i);
-        minHeap.set(i, minHeap.get(size() - 1));
-        minHeap.set(size() - 1, tmp);
-        minHeap.remove(size() - 1);
-
-        // Restoring heap by performing multiple minHeapify
-        for (int j = (size() / 2) - 1; j >= 0; j--) {
-            minHeapify(j);
-        }
-    }
-
-    private int findIndexOfItem(BNode item) {
-        int i;
-        // Retrieving the index of item we need to remove
-        for (i = 0; i < size(); i++) {
-            if (item.key.equals(minHeap.get(i).key) && item.value.equals(minHeap.get(i).value)) {
-                break;
-            }
+    private void siftDown(double key, V value) {
+        int i = 0;
+        int half = size >>> 1;
+        // Only positions in the first half of the array have children
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && less(keys[right], values[right], keys[child], values[child])) child = right;
+            if (!less(keys[child], values[child], key, value)) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
         }
-        return i;
+        keys[i] = key;
+        values[i] = value;
     }
 
-    public void union(Object anotherQueue) {
-        PriorityQueue<K, V> queue = (PriorityQueue) anotherQueue;
-
-        // Adding elements from another queue to our queue
-        for (int i = 0; i < queue.size(); i++) {
-            minHeap.add(queue.extractMin());
-        }
-
-        // Restoring heap after merging two queues
-        for (int i = ((size() + queue.size()) / 2) - 1; i >= 0; i--) {
-            minHeapify(i);
-        }
-    }
-
-    private int size() {
-        return minHeap.size();
+    public int size() {
+        return size;
     }
 
     public boolean isEmpty() {
-        return size() == 0;
+        return size == 0;
     }
 
-    // 2 methods below are used to compare keys or values of the heap
-    private boolean less(K key1, K key2) {
-        return key1.compareTo(key2) < 0;
+    private void grow() {
+        keys = Arrays.copyOf(keys, keys.length * 2);
+        values = Arrays.copyOf(values, keys.length);
     }
 
-}
-
-class Node<K, V> {
-    K key;
-    V value;
-    Node() {}
-    Node(K key, V value) {
-        this.key = key;
-        this.value = value;
+    private void checkNotEmpty() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
     }
-}
 
-interface IPriorityQueue<K, V, N extends Node<K, V>> {
-    void insert(N item);
-
-    N findMin();
-
-    N extractMin();
-
-    void decreaseKey(N item, K newKey);
-
-    void delete(N item);
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(double key1, V value1, double key2, V value2) {
+        return key1 < key2 || (key1 == key2 && value1.compareTo(value2) < 0);
+    }
 
-    void union(Object anotherQueue);
 }
@@ -0,0 +1,220 @@
+package dsa;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/*
+ Tokenizer shared by all command-driven programs. It reads raw bytes either from a stream (stdin)
+ or from a memory-mapped file, and parses numbers and dates directly from the byte buffer,
+ so only tokens that are really needed as text (names) become Strings
+ */
+class FastReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // Largest part of a file mapped at once, files of any size are read by consecutive mappings
+    private static final long MAPPING_SIZE = 1L << 30;
+    // Any 18 digits fit into a long, longer integers are left to Long.parseLong, which detects overflow
+    private static final int SAFE_DIGITS = 18;
+    // Integers up to 2^53 and powers of ten up to 10^22 are exact doubles, so their quotient is correctly rounded
+    private static final long EXACT_MANTISSA = 1L << 53;
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final FileChannel channel;
+    private MappedByteBuffer mapped;
+    private long mappedUntil;
+
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position;
+    private int limit;
+    // Used to build String tokens and to fall back to the JDK parsers for unusual numbers
+    private byte[] token = new byte[64];
+
+    public FastReader(InputStream in) {
+        this.in = in;
+        this.channel = null;
+    }
+
+    public FastReader(Path file) throws IOException {
+        this.in = null;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+    }
+
+    // Skipping whitespace and returning the next byte without consuming it, or -1 at the end of input
+    public int peek() {
+        skipWhitespace();
+        return peekRaw();
+    }
+
+    // Whether only spaces are left on the current line
+    public boolean atEndOfLine() {
+        while (true) {
+            int c = peekRaw();
+            if (c == -1 || c == '\n') return true;
+            if (c > ' ') return false;
+            position++;
+        }
+    }
+
+    // Consuming the next non-whitespace byte if it is equal to "c"
+    public boolean skip(char c) {
+        if (peek() != c) return false;
+        position++;
+        return true;
+    }
+
+    public void skipToken() {
+        skipWhitespace();
+        while (peekRaw() > ' ') position++;
+    }
+
+    public String next() {
+        skipWhitespace();
+        int length = 0;
+        for (int c = peekRaw(); c > ' '; c = peekRaw()) {
+            length = append(length, c);
+            position++;
+        }
+        return new String(token, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public int nextInt() {
+        long value = nextLong();
+        if (value != (int) value) throw new NumberFormatException("Value " + value + " does not fit into int");
+        return (int) value;
+    }
+
+    public long nextLong() {
+        skipWhitespace();
+        boolean negative = skipSign();
+        int length = 0;
+        long value = 0;
+        int digits = 0;
+        for (int c = peekRaw(); c >= '0' && c <= '9'; c = peekRaw()) {
+            length = append(length, c);
+            value = value * 10 + (c - '0');
+            digits++;
+            position++;
+        }
+        if (digits == 0 || peekRaw() > ' ') throw new NumberFormatException("Malformed integer");
+        if (digits > SAFE_DIGITS) {
+            String text = new String(token, 0, length, StandardCharsets.US_ASCII);
+            return Long.parseLong(negative ? "-" + text : text);
+        }
+        return negative ? -value : value;
+    }
+
+    public double nextDouble() {
+        skipWhitespace();
+        int length = 0;
+        boolean negative = false;
+        boolean simple = true;
+        boolean afterPoint = false;
+        long mantissa = 0;
+        int scale = 0;
+        int digits = 0;
+
+        for (int c = peekRaw(); c > ' '; c = peekRaw()) {
+            length = append(length, c);
+            position++;
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (afterPoint) scale++;
+                if (mantissa >= EXACT_MANTISSA) simple = false;
+            } else if (c == '.' && !afterPoint) {
+                afterPoint = true;
+            } else if (c == '-' && length == 1) {
+                negative = true;
+            } else if (!(c == '+' && length == 1)) {
+                simple = false;    // exponent, NaN, Infinity and malformed input are left to the JDK parser
+            }
+        }
+        // A token without digits, such as "." or "-", is rejected by the JDK parser
+        if (!simple || digits == 0 || scale >= POWERS_OF_TEN.length) {
+            return Double.parseDouble(new String(token, 0, length, StandardCharsets.US_ASCII));
+        }
+
+        double value = mantissa / POWERS_OF_TEN[scale];
+        return negative ? -value : value;
+    }
+
+    // Parsing a date in "yyyy-MM-dd" format into an integer of the form yyyyMMdd
+    public int nextDate() {
+        skipWhitespace();
+        int value = 0;
+        int digits = 0;
+        for (int c = peekRaw(); c > ' '; c = peekRaw()) {
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                digits++;
+            } else if (c != '-') {
+                throw new NumberFormatException("Malformed date");
+            }
+            position++;
+        }
+        if (digits != 8) throw new NumberFormatException("Malformed date");
+        return value;
+    }
+
+    public void close() throws IOException {
+        if (in != null) in.close();
+        if (channel != null) channel.close();
+    }
+
+    private boolean skipSign() {
+        int c = peekRaw();
+        if (c == '-' || c == '+') position++;
+        return c == '-';
+    }
+
+    private void skipWhitespace() {
+        for (int c = peekRaw(); c != -1 && c <= ' '; c = peekRaw()) {
+            position++;
+        }
+    }
+
+    private int append(int length, int c) {
+        if (length == token.length) token = Arrays.copyOf(token, length * 2);
+        token[length] = (byte) c;
+        return length + 1;
+    }
+
+    private int peekRaw() {
+        if (position == limit && !fill()) return -1;
+        return buffer[position] & 0xFF;
+    }
+
+    private boolean fill() {
+        try {
+            position = 0;
+            limit = in != null ? Math.max(in.read(buffer), 0) : fillFromMapping();
+            return limit > 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private int fillFromMapping() throws IOException {
+        if (mapped == null || !mapped.hasRemaining()) {
+            long fileSize = channel.size();
+            if (mappedUntil >= fileSize) return 0;
+            long length = Math.min(MAPPING_SIZE, fileSize - mappedUntil);
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, mappedUntil, length);
+            mappedUntil += length;
+        }
+        int length = Math.min(buffer.length, mapped.remaining());
+        mapped.get(buffer, 0, length);
+        return length;
+    }
+}
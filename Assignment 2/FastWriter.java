@@ -0,0 +1,105 @@
+package dsa;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+/*
+ Buffered writer for program output. Numbers are formatted directly into the byte buffer,
+ which is written to the stream only when it is full and on flush
+ */
+class FastWriter implements Closeable, Flushable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int size;
+
+    public FastWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    public FastWriter print(long value) {
+        if (value == Long.MIN_VALUE) return print(String.valueOf(value));
+        ensureSpace(20);
+        if (value < 0) {
+            buffer[size++] = '-';
+            value = -value;
+        }
+
+        // Writing digits from the end, then reversing them
+        int start = size;
+        do {
+            buffer[size++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        for (int i = start, j = size - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+        return this;
+    }
+
+    public FastWriter print(char c) {
+        if (c >= 0x80) return print(String.valueOf(c));
+        ensureSpace(1);
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+    public FastWriter print(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return write(s.getBytes(StandardCharsets.UTF_8));
+        }
+        // ASCII strings are copied char by char, without encoding them into a new array
+        for (int i = 0; i < s.length(); i++) {
+            ensureSpace(1);
+            buffer[size++] = (byte) s.charAt(i);
+        }
+        return this;
+    }
+
+    public FastWriter println() {
+        return print('\n');
+    }
+
+    public FastWriter println(long value) {
+        return print(value).println();
+    }
+
+    public FastWriter println(String s) {
+        return print(s).println();
+    }
+
+    public void flush() throws IOException {
+        out.write(buffer, 0, size);
+        size = 0;
+        out.flush();
+    }
+
+    public void close() throws IOException {
+        flush();
+    }
+
+    private FastWriter write(byte[] bytes) {
+        for (byte b : bytes) {
+            ensureSpace(1);
+            buffer[size++] = b;
+        }
+        return this;
+    }
+
+    private void ensureSpace(int bytes) {
+        if (size + bytes <= buffer.length) return;
+        try {
+            out.write(buffer, 0, size);
+            size = 0;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
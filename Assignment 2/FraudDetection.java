@@ -1,194 +1,694 @@
 package dsa;
 
-import java.time.LocalDate;
-import java.time.Period;
-import java.time.format.DateTimeFormatter;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-
-import static java.util.Collections.swap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 public class FraudDetection {
-    /* Function to retrieve median of array in constant time */
-    public static double medianOf(ArrayList<Double> arr) {
-        int size = arr.size();
-        return size % 2 == 0 ? (arr.get((size / 2) - 1) + arr.get(size / 2)) / 2 : arr.get(size / 2);
+    public static void main(String[] args) throws IOException {
+        // With "--stream L" transactions are checked as they are read, allowing dates to come up to L days late.
+        // With "--accounts" every transaction starts with an account id, and accounts are checked separately
+        int lateness = -1;
+        boolean multipleAccounts = false;
+        Path file = null;
+        for (int a = 0; a < args.length; a++) {
+            if (args[a].equals("--stream")) {
+                lateness = Integer.parseInt(args[++a]);
+            } else if (args[a].equals("--accounts")) {
+                multipleAccounts = true;
+            } else {
+                file = Path.of(args[a]);
+            }
+        }
+        FastReader reader = file != null ? new FastReader(file) : new FastReader(System.in);
+        FastWriter writer = new FastWriter(System.out);
+
+        if (multipleAccounts && lateness >= 0) {
+            throw new IllegalArgumentException("Streaming is not supported with multiple accounts");
+        }
+        int n = reader.nextInt(), d = reader.nextInt();
+
+        if (multipleAccounts) {
+            countAccountAlerts(reader, writer, n, d);
+            writer.flush();
+            return;
+        }
+        if (lateness >= 0) {
+            StreamingFraudDetection stream = new StreamingFraudDetection(d, lateness, null);
+            for (int i = 0; i < n; i++) {
+                int currentDay = reader.nextDate();
+                reader.skip('$');
+                stream.accept(currentDay, reader.nextDouble());
+            }
+            stream.finish();
+            writer.println(stream.alerts());
+            writer.flush();
+            return;
+        }
+
+        /* Processing input data into a column of dates and a column of amounts */
+        int[] dates = new int[n];
+        double[] amounts = new double[n];
+        for (int i = 0; i < n; i++) {
+            dates[i] = reader.nextDate();
+            reader.skip('$');
+            amounts[i] = reader.nextDouble();
+        }
+
+        writer.println(countAlerts(dates, amounts, n, d));
+        writer.flush();
     }
 
-    /* Function to convert date in integer format, to parse days and inflect skipped days */
-    public static LocalDate getDateFromNumber(Integer number) {
-        return LocalDate.parse(String.valueOf(number), DateTimeFormatter.ofPattern("yyyyMMdd"));
+    /* Reading transactions of many accounts, then printing the total number of alerts and the alerts of every account */
+    private static void countAccountAlerts(FastReader reader, FastWriter writer, int n, int d) {
+        // Account ids are numbered in the order they first appear
+        HashMap<String, Integer> ids = new HashMap<>();
+        ArrayList<String> names = new ArrayList<>();
+        int[] accounts = new int[n];
+        int[] dates = new int[n];
+        double[] amounts = new double[n];
+        for (int i = 0; i < n; i++) {
+            String name = reader.next();
+            Integer id = ids.get(name);
+            if (id == null) {
+                id = names.size();
+                ids.put(name, id);
+                names.add(name);
+            }
+            accounts[i] = id;
+            dates[i] = reader.nextDate();
+            reader.skip('$');
+            amounts[i] = reader.nextDouble();
+        }
+
+        int[] alerts = AccountFraudDetection.countAlerts(accounts, names.size(), dates, amounts, n, d);
+        long total = 0;
+        for (int count : alerts) total += count;
+        writer.println(total);
+        for (int a = 0; a < alerts.length; a++) {
+            writer.print(names.get(a)).print(' ').println(alerts[a]);
+        }
     }
 
-    /* Linear based algorithm that is used to perform stable radix sort to sort transactions by date */
-    private static void countingSort(ArrayList<Day> arr, int currentDigit, int size) {
-        ArrayList<Day> result = new ArrayList<>();
-        int[] count = new int[10];
+    /* Sorting the first "size" transactions by date in place and counting alerts against the median of "d" trailing days */
+    public static int countAlerts(int[] dates, double[] amounts, int size, int d) {
+        new DateRadixSort().sort(dates, amounts, size);
+        FraudDetector detector = new FraudDetector(d, null);
 
-        for (int z = 0; z < size; z++) {
-            result.add(new Day(0, 0));
+        for (int i = 0, j; i < size; i = j) {
+            for (j = i + 1; j < size && dates[j] == dates[i]; j++) ;
+            detector.day(dates[i], amounts, i, j);
         }
+        return detector.alerts();
+    }
+}
 
-        for (int i = 0; i < size; i++) {
-            count[(arr.get(i).getDate() / currentDigit) % 10]++;
+
+/*
+ Stable LSD radix sort of transactions by date, over a column of dates and a column of amounts moved along with them.
+ Dates are sorted one byte at a time: the histograms of all four bytes are counted in a single pass, and passes
+ where every date has the same byte are skipped, so dates within a few years usually take three passes or less.
+ Elements move between the columns and one scratch buffer that is kept for later calls, so sorting the same
+ number of transactions again allocates nothing. Histograms are kept as well, and a few transactions are
+ sorted by insertion instead, so many small sorts in a row stay cheap.
+ Large inputs are split into blocks that are counted and scattered in parallel in the common fork-join pool,
+ every block writing to its own offsets within each bucket, which keeps the sort stable
+ */
+class DateRadixSort {
+    private static final int RADIX = 256;
+    private static final int PASSES = 4;
+    // Below this size the cost of forking outweighs what the parallel passes save
+    private static final int PARALLEL_THRESHOLD = 1 << 20;
+    // Up to this size insertion sort is faster than counting four histograms
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private int[] dateBuffer = new int[0];
+    private double[] amountBuffer = new double[0];
+    private int[][] counts = new int[0][];
+    private int[][] offsets = new int[0][];
+    private final int[] total = new int[PASSES * RADIX];
+
+    // Sorting the first "size" transactions, in parallel when the input is large and more than one core is available
+    void sort(int[] dates, double[] amounts, int size) {
+        boolean parallel = size >= PARALLEL_THRESHOLD && ForkJoinPool.getCommonPoolParallelism() > 1;
+        sort(dates, amounts, size, parallel);
+    }
+
+    void sort(int[] dates, double[] amounts, int size, boolean parallel) {
+        if (size < 0 || size > dates.length || size > amounts.length) {
+            throw new IllegalArgumentException("Size " + size + " out of bounds of the columns");
+        }
+        if (size <= INSERTION_THRESHOLD) {
+            insertionSort(dates, amounts, size);
+            return;
+        }
+        if (dateBuffer.length < size) {
+            dateBuffer = new int[size];
+            amountBuffer = new double[size];
         }
 
-        for (int i = 1; i < 10; i++) {
-            count[i] += count[i - 1];
+        int blocks = parallel ? Math.min(ForkJoinPool.getCommonPoolParallelism() * 4, size / RADIX + 1) : 1;
+        if (counts.length != blocks) {
+            counts = new int[blocks][PASSES * RADIX];
+            offsets = new int[blocks][RADIX];
+        }
+        countAll(dates, size, blocks, counts, total);
+        boolean scattered = false;
+
+        int[] fromDates = dates, toDates = dateBuffer;
+        double[] fromAmounts = amounts, toAmounts = amountBuffer;
+        for (int pass = 0; pass < PASSES; pass++) {
+            int shift = pass * 8;
+            if (total[pass * RADIX + digit(dates[0], shift)] == size) continue;
+
+            // Counts per block stay valid until the first scatter, after it blocks hold other elements and are counted again
+            int base = pass * RADIX;
+            if (blocks > 1 && scattered) {
+                countBlocks(fromDates, size, blocks, shift, counts);
+                base = 0;
+            }
+            computeOffsets(counts, blocks, base, offsets);
+            scatter(fromDates, fromAmounts, toDates, toAmounts, size, blocks, shift, offsets);
+            scattered = true;
+
+            int[] dateSwap = fromDates;
+            fromDates = toDates;
+            toDates = dateSwap;
+            double[] amountSwap = fromAmounts;
+            fromAmounts = toAmounts;
+            toAmounts = amountSwap;
         }
 
-        for (int i = size - 1; i >= 0; i--) {
-            int date = arr.get(i).getDate(), digit = (date / currentDigit) % 10;
-            result.set(count[digit] - 1, new Day(date, arr.get(i).getTransaction()));
-            count[digit]--;
+        // After an odd number of passes the sorted transactions are in the scratch buffer
+        if (fromDates != dates) {
+            System.arraycopy(fromDates, 0, dates, 0, size);
+            System.arraycopy(fromAmounts, 0, amounts, 0, size);
         }
+    }
 
-        for (int i = 0; i < size; i++) {
-            arr.set(i, result.get(i));
+    private static void insertionSort(int[] dates, double[] amounts, int size) {
+        for (int i = 1; i < size; i++) {
+            int date = dates[i];
+            double amount = amounts[i];
+            int j = i - 1;
+            for (; j >= 0 && dates[j] > date; j--) {
+                dates[j + 1] = dates[j];
+                amounts[j + 1] = amounts[j];
+            }
+            dates[j + 1] = date;
+            amounts[j + 1] = amount;
         }
     }
 
+    // Byte of the date at "shift", with the sign bit flipped in the top byte so negative values sort first
+    private static int digit(int date, int shift) {
+        return shift == 24 ? (date >>> 24) ^ 0x80 : (date >>> shift) & 0xFF;
+    }
+
+    private static int blockStart(int block, int blocks, int size) {
+        return (int) ((long) size * block / blocks);
+    }
 
-    public static void radixSort(ArrayList<Day> arr, int size) {
-        for (int digit = 1; digit < Math.pow(10, 8); digit *= 10) {
-            countingSort(arr, digit, size);
+    // Counting all four bytes of every date per block, and their sums over the blocks into "total"
+    private static void countAll(int[] dates, int size, int blocks, int[][] counts, int[] total) {
+        forEachBlock(blocks, block -> {
+            int[] count = counts[block];
+            Arrays.fill(count, 0);
+            for (int i = blockStart(block, blocks, size), end = blockStart(block + 1, blocks, size); i < end; i++) {
+                int date = dates[i];
+                count[date & 0xFF]++;
+                count[RADIX + ((date >>> 8) & 0xFF)]++;
+                count[2 * RADIX + ((date >>> 16) & 0xFF)]++;
+                count[3 * RADIX + ((date >>> 24) ^ 0x80)]++;
+            }
+        });
+        Arrays.fill(total, 0);
+        for (int[] count : counts) {
+            for (int i = 0; i < total.length; i++) total[i] += count[i];
         }
     }
 
-    private static int partition(ArrayList<Double> arr, int low, int high) {
-        double key = arr.get(high);
-        int i = low - 1;
-        for (int k = low; k < high; k++) {
-            if (arr.get(k) < key) {
-                swap(arr, ++i, k);
+    // Counting the byte at "shift" per block, into the first bucket range of "counts"
+    private static void countBlocks(int[] dates, int size, int blocks, int shift, int[][] counts) {
+        forEachBlock(blocks, block -> {
+            int[] count = counts[block];
+            Arrays.fill(count, 0, RADIX, 0);
+            for (int i = blockStart(block, blocks, size), end = blockStart(block + 1, blocks, size); i < end; i++) {
+                count[digit(dates[i], shift)]++;
+            }
+        });
+    }
+
+    // Position of the first element of every block in every bucket: buckets in order, blocks in order within a bucket
+    private static void computeOffsets(int[][] counts, int blocks, int base, int[][] offsets) {
+        int position = 0;
+        for (int bucket = 0; bucket < RADIX; bucket++) {
+            for (int block = 0; block < blocks; block++) {
+                offsets[block][bucket] = position;
+                position += counts[block][base + bucket];
             }
         }
-        swap(arr, i + 1, high);
-        return i + 1;
     }
 
-    /* Comparison based algorithm to sort array, taken from queue of trailing days */
-    public static void quickSort(ArrayList<Double> arr, int low, int high) {
-        if (low < high) {
-            int key = partition(arr, low, high);
-            quickSort(arr, low, key - 1);
-            quickSort(arr, key + 1, high);
+    private static void scatter(int[] fromDates, double[] fromAmounts, int[] toDates, double[] toAmounts,
+                                int size, int blocks, int shift, int[][] offsets) {
+        forEachBlock(blocks, block -> {
+            int[] offset = offsets[block];
+            for (int i = blockStart(block, blocks, size), end = blockStart(block + 1, blocks, size); i < end; i++) {
+                int position = offset[digit(fromDates[i], shift)]++;
+                toDates[position] = fromDates[i];
+                toAmounts[position] = fromAmounts[i];
+            }
+        });
+    }
+
+    private static void forEachBlock(int blocks, IntConsumer action) {
+        if (blocks == 1) {
+            action.accept(0);
+        } else {
+            IntStream.range(0, blocks).parallel().forEach(action);
         }
     }
+}
 
-    public static void main(String[] args) {
-        Scanner scanner = new Scanner(System.in);
 
-        ArrayList<Day> expenses = new ArrayList<>();
+/*
+ Alert rule applied to days in date order: every running sum of a day's transactions is compared with
+ twice the median of the "d" trailing days, once there are "d" of them. Days without transactions count as zero
+ */
+class FraudDetector {
+    private static final long NO_DAY = Long.MIN_VALUE;
 
-        boolean sameDay = false;
-        double transaction, temporarySum;
-        int skippedDays, currentDay, alerts = 0, n = scanner.nextInt(), d = scanner.nextInt();
+    private final SlidingMedian trailingDays;
+    private final AlertListener listener;
+    private long previousDay = NO_DAY;
+    private int alerts = 0;
 
-        /* Processing input data, by adding it in ArrayList of days */
-        for (int i = 0; i <= n; i++) {
-            String line = scanner.nextLine();
-            if (Objects.equals(line, "")) continue;
+    FraudDetector(int d, AlertListener listener) {
+        this.trailingDays = new SlidingMedian(d);
+        this.listener = listener;
+    }
 
-            String[] lines = line.split(" ");
-            transaction = Double.parseDouble(lines[1].replaceFirst("\\$", ""));
-            currentDay = Integer.parseInt(lines[0].replaceAll("-", ""));
-            expenses.add(new Day(currentDay, transaction));
+    // Checking the transactions of "date", which should be later than all days passed before
+    void day(int date, List<Double> transactions) {
+        skipTo(date);
+        double temporarySum = 0;
+        for (double transaction : transactions) {
+            temporarySum = check(date, temporarySum + transaction);
         }
+        trailingDays.add(temporarySum);
+    }
 
-        radixSort(expenses, expenses.size());
-        Queue<Double> trailingDays = new LinkedList<>();          // The queue to keep last d trailing days
-        ArrayList<Double> days = new ArrayList<>(trailingDays);   // The list in which we will sort data from queue
-        ArrayList<Double> transactions = new ArrayList<>();
-        expenses.add(new Day(0, 0));   // Adding one dull day to have "i" loops instead of "i - 1" loops
+    // Same for the transactions of "date" between "from" (inclusive) and "to" (exclusive) of a column
+    void day(int date, double[] transactions, int from, int to) {
+        skipTo(date);
+        double temporarySum = 0;
+        for (int i = from; i < to; i++) {
+            temporarySum = check(date, temporarySum + transactions[i]);
+        }
+        trailingDays.add(temporarySum);
+    }
 
-        for(int i = 1; i < expenses.size(); i++) {
+    // Adding a zero for every day without transactions since the previous one
+    private void skipTo(int date) {
+        long day = DateCodec.toEpochDay(date);
+        if (previousDay != NO_DAY) {
+            trailingDays.addRepeated(0.0, day - previousDay - 1);
+        }
+        previousDay = day;
+    }
 
-            temporarySum = 0;
-            Day presentDay = expenses.get(i - 1);
-            Day nextDay = expenses.get(i);
+    private double check(int date, double temporarySum) {
+        if (!trailingDays.isFull()) return temporarySum;
+        double median = trailingDays.median();
+        if (temporarySum != 0 && temporarySum >= 2 * median) {
+            alerts++;
+            if (listener != null) listener.alert(date, temporarySum, median);
+        }
+        return temporarySum;
+    }
 
-            // Retrieving several consecutive days, by checking current and the next day
-            if (nextDay.getDate().equals(presentDay.getDate())) {
-                if (!sameDay) transactions.clear();
-                transactions.add(presentDay.getTransaction());
-                sameDay = true;
-                if (i != expenses.size() - 1) {
-                    continue;
-                } else {
-                    transactions.add(nextDay.getTransaction());
-                }
-            } else {
-                if (sameDay) {
-                    transactions.add(presentDay.getTransaction());
-                    sameDay = false;
-                } else {
-                    transactions.clear();
-                    transactions.add(presentDay.getTransaction());
-                    if (i == expenses.size()) {
-                        transactions.clear();
-                        transactions.add(nextDay.getTransaction());
-                    }
-                }
+    int alerts() {
+        return alerts;
+    }
+
+    // Forgetting all days and alerts, so the detector can be used for another account
+    void reset() {
+        trailingDays.clear();
+        previousDay = NO_DAY;
+        alerts = 0;
+    }
+}
+
+
+/*
+ Fraud detection for many accounts at once. Transactions are grouped by account with a stable counting sort,
+ then accounts are split into shards of about the same number of transactions, which are checked in parallel
+ in the common fork-join pool. Every shard owns a detector that is reset between its accounts, a sorter
+ and scratch columns, and writes only the alert counts of its own accounts, so shards share nothing
+ but columns they read
+ */
+class AccountFraudDetection {
+    // More shards than threads even out accounts of very different sizes
+    private static final int SHARDS_PER_THREAD = 4;
+
+    private AccountFraudDetection() {
+    }
+
+    // Alerts of every account, given the account of every transaction between 0 and "accountCount" (exclusive)
+    static int[] countAlerts(int[] accounts, int accountCount, int[] dates, double[] amounts, int size, int d) {
+        if (size < 0 || size > accounts.length || size > dates.length || size > amounts.length) {
+            throw new IllegalArgumentException("Size " + size + " out of bounds of the columns");
+        }
+
+        // start[a] is the position of the first transaction of account "a" once they are grouped
+        int[] start = new int[accountCount + 1];
+        for (int i = 0; i < size; i++) {
+            if (accounts[i] < 0 || accounts[i] >= accountCount) {
+                throw new IllegalArgumentException("Account " + accounts[i] + " out of range");
             }
+            start[accounts[i] + 1]++;
+        }
+        for (int a = 0; a < accountCount; a++) start[a + 1] += start[a];
+
+        int[] groupedDates = new int[size];
+        double[] groupedAmounts = new double[size];
+        int[] next = Arrays.copyOf(start, accountCount);
+        for (int i = 0; i < size; i++) {
+            int position = next[accounts[i]]++;
+            groupedDates[position] = dates[i];
+            groupedAmounts[position] = amounts[i];
+        }
+
+        int[] alerts = new int[accountCount];
+        int shards = Math.max(1, Math.min(accountCount, ForkJoinPool.getCommonPoolParallelism() * SHARDS_PER_THREAD));
+        IntStream.range(0, shards).parallel().forEach(shard -> {
+            int from = firstAccount(start, accountCount, (long) size * shard / shards);
+            int to = firstAccount(start, accountCount, (long) size * (shard + 1) / shards);
+            if (shard == shards - 1) to = accountCount;
+            checkAccounts(from, to, start, groupedDates, groupedAmounts, d, alerts);
+        });
+        return alerts;
+    }
 
-            // Checking if the consecutive sum of transactions will lead to an alert
-            for (double tc : transactions) {
-                temporarySum += tc;
-                if (trailingDays.size() != d) continue;
-                if (temporarySum != 0 && temporarySum >= 2 * medianOf(days)) {
-                    alerts++;
-                }
+    // Checking accounts from "from" (inclusive) to "to" (exclusive) within one shard
+    private static void checkAccounts(int from, int to, int[] start, int[] groupedDates, double[] groupedAmounts,
+                                      int d, int[] alerts) {
+        FraudDetector detector = new FraudDetector(d, null);
+        DateRadixSort sorter = new DateRadixSort();
+        int[] dates = new int[0];
+        double[] amounts = new double[0];
+
+        for (int account = from; account < to; account++) {
+            int length = start[account + 1] - start[account];
+            if (dates.length < length) {
+                dates = new int[length];
+                amounts = new double[length];
+            }
+            System.arraycopy(groupedDates, start[account], dates, 0, length);
+            System.arraycopy(groupedAmounts, start[account], amounts, 0, length);
+            sorter.sort(dates, amounts, length, false);
+
+            detector.reset();
+            for (int i = 0, j; i < length; i = j) {
+                for (j = i + 1; j < length && dates[j] == dates[i]; j++) ;
+                detector.day(dates[i], amounts, i, j);
             }
+            alerts[account] = detector.alerts();
+        }
+    }
 
-            // Updating the queue
-            if (trailingDays.size() != d) {
-                trailingDays.add(temporarySum);
+    // First account whose transactions start at or after "position"
+    private static int firstAccount(int[] start, int accountCount, long position) {
+        int low = 0, high = accountCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (start[middle] < position) {
+                low = middle + 1;
             } else {
-                trailingDays.remove();
-                trailingDays.add(temporarySum);
+                high = middle;
             }
+        }
+        return low;
+    }
+}
 
-            if (nextDay.getDate() == 0) continue;
-            // Parsing the Integer dates
-            Period period = Period.between(getDateFromNumber(presentDay.getDate()), getDateFromNumber(nextDay.getDate()));
-            skippedDays = period.getDays();
-
-            /* Adding extra days with 0 transactions in queue
-               if there are missing days between current and next day */
-            for (int j = 0; j < (skippedDays - 1); j++) {
-                if (trailingDays.size() != d) {
-                    trailingDays.add(0.0);
-                } else {
-                    trailingDays.remove();
-                    trailingDays.add(0.0);
-                }
-            }
 
-            // Converting queue into ArrayList to sort it using QuickSort
-            days = new ArrayList<>(trailingDays);
-            if (days.size() == d) quickSort(days, 0, d - 1);
+/* Called for every alert with the date, the running sum of the day which caused it and the median it was compared with */
+interface AlertListener {
+    void alert(int date, double spent, double median);
+}
+
+
+/*
+ Streaming mode: transactions are checked as they arrive instead of after sorting the whole input.
+ Days are held in a reorder buffer until the latest date seen is more than "lateness" days ahead of them,
+ then they are passed to the detector in date order. A transaction of a day which has already been passed on
+ is too late to be checked, it is only counted. Memory holds the window of "d" days and the buffered days
+ */
+class StreamingFraudDetection {
+    private final FraudDetector detector;
+    private final int lateness;
+    private final TreeMap<Integer, ArrayList<Double>> buffer = new TreeMap<>();
+    private long latestEpochDay = Long.MIN_VALUE;
+    private int lastPassedDate = 0;
+    private long lateTransactions = 0;
+
+    StreamingFraudDetection(int d, int lateness, AlertListener listener) {
+        if (lateness < 0) throw new IllegalArgumentException("Lateness should not be negative");
+        this.detector = new FraudDetector(d, listener);
+        this.lateness = lateness;
+    }
+
+    void accept(int date, double transaction) {
+        if (date <= lastPassedDate) {
+            lateTransactions++;
+            return;
+        }
+        buffer.computeIfAbsent(date, day -> new ArrayList<>()).add(transaction);
+
+        long epochDay = DateCodec.toEpochDay(date);
+        if (epochDay <= latestEpochDay) return;
+        latestEpochDay = epochDay;
+        while (!buffer.isEmpty()
+                && DateCodec.toEpochDay(buffer.firstKey()) < latestEpochDay - lateness) {
+            pass(buffer.pollFirstEntry());
+        }
+    }
+
+    // Passing all buffered days on, at the end of the stream
+    void finish() {
+        while (!buffer.isEmpty()) {
+            pass(buffer.pollFirstEntry());
         }
+    }
+
+    private void pass(Map.Entry<Integer, ArrayList<Double>> day) {
+        detector.day(day.getKey(), day.getValue());
+        lastPassedDate = day.getKey();
+    }
+
+    int alerts() {
+        return detector.alerts();
+    }
 
-        System.out.println(alerts);
+    long lateTransactions() {
+        return lateTransactions;
     }
 }
 
 
-/* A class used to store the date and transaction */
-class Day {
-    private final Integer date;
-    private final double transaction;
+/*
+ Conversion of dates written as yyyyMMdd integers to days since 1970-01-01, computed arithmetically
+ so gaps between dates are exact across months and years, without parsing or allocating.
+ Years are counted from March, which puts the leap day at the end of the year, in 400-year cycles of 146097 days
+ */
+final class DateCodec {
+    private static final int[] DAYS_IN_MONTH = {31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+    private static final int DAYS_IN_CYCLE = 146097;
+    // Days from 0000-03-01 to 1970-01-01
+    private static final int EPOCH_OFFSET = 719468;
+
+    private DateCodec() {
+    }
+
+    static long toEpochDay(int date) {
+        int year = date / 10000, month = date / 100 % 100, day = date % 100;
+        if (date < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            throw new IllegalArgumentException("Invalid date " + date);
+        }
+
+        int marchYear = month > 2 ? year : year - 1;
+        int cycle = Math.floorDiv(marchYear, 400);
+        int yearOfCycle = marchYear - cycle * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfCycle = yearOfCycle * 365 + yearOfCycle / 4 - yearOfCycle / 100 + dayOfYear;
+        return (long) cycle * DAYS_IN_CYCLE + dayOfCycle - EPOCH_OFFSET;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return year % 4 == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        return month == 2 && isLeapYear(year) ? 29 : DAYS_IN_MONTH[month - 1];
+    }
+}
+
 
-    Day(Integer date, double transaction) {
-        this.date = date;
-        this.transaction = transaction;
+/*
+ Median of the last "capacity" values. Window slots are kept in two heaps: "low" is a max-heap of the smaller half
+ and "high" is a min-heap of the larger half, with "low" holding the extra value of an odd window.
+ Every slot knows its position in its heap, so the oldest value is removed right away in O(log d)
+ and the median is read from the tops of the heaps
+ */
+class SlidingMedian {
+    private final double[] values;     // ring buffer of the window
+    private final int[] position;      // position of every slot in its heap
+    private final boolean[] inLow;
+    private final int[] low;
+    private final int[] high;
+    private int lowSize, highSize;
+    private int oldest, size;
+
+    SlidingMedian(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Window should hold at least one value");
+        values = new double[capacity];
+        position = new int[capacity];
+        inLow = new boolean[capacity];
+        low = new int[capacity];
+        high = new int[capacity];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == values.length;
+    }
+
+    // Adding a value, the oldest one is evicted if the window is full
+    void add(double value) {
+        if (isFull()) {
+            remove(oldest);
+            oldest = (oldest + 1) % values.length;
+            size--;
+        }
+
+        int slot = (oldest + size) % values.length;
+        values[slot] = value;
+        size++;
+        if (lowSize == 0 || value <= values[low[0]]) {
+            push(slot, true);
+        } else {
+            push(slot, false);
+        }
+        rebalance();
+    }
+
+    void clear() {
+        oldest = 0;
+        size = 0;
+        lowSize = 0;
+        highSize = 0;
+    }
+
+    // Adding "count" copies of a value, a count of at least the capacity replaces the whole window at once in O(d)
+    void addRepeated(double value, long count) {
+        if (count < values.length) {
+            for (int i = 0; i < count; i++) add(value);
+            return;
+        }
+
+        Arrays.fill(values, value);
+        oldest = 0;
+        size = values.length;
+        // With all values equal any split is ordered, the first half of the slots goes to "low"
+        lowSize = (size + 1) / 2;
+        highSize = size - lowSize;
+        for (int slot = 0; slot < size; slot++) {
+            inLow[slot] = slot < lowSize;
+            if (inLow[slot]) {
+                place(low, slot, slot);
+            } else {
+                place(high, slot, slot - lowSize);
+            }
+        }
+    }
+
+    // Average of the two middle values for an even window, computed the same way as from a sorted array
+    double median() {
+        if (size == 0) throw new NoSuchElementException("Window is empty");
+        if (lowSize > highSize) return values[low[0]];
+        return (values[low[0]] + values[high[0]]) / 2;
+    }
+
+    private void rebalance() {
+        if (lowSize > highSize + 1) {
+            int slot = low[0];
+            remove(slot);
+            push(slot, false);
+        } else if (highSize > lowSize) {
+            int slot = high[0];
+            remove(slot);
+            push(slot, true);
+        }
+    }
+
+    private void push(int slot, boolean toLow) {
+        int[] heap = toLow ? low : high;
+        int i = toLow ? lowSize++ : highSize++;
+        inLow[slot] = toLow;
+        place(heap, slot, i);
+        siftUp(heap, i, toLow);
+    }
+
+    private void remove(int slot) {
+        boolean fromLow = inLow[slot];
+        int[] heap = fromLow ? low : high;
+        int i = position[slot];
+        int last = fromLow ? --lowSize : --highSize;
+        if (i == last) return;
+
+        // The last slot of the heap takes the freed position and moves up or down from there
+        int moved = heap[last];
+        place(heap, moved, i);
+        siftUp(heap, i, fromLow);
+        siftDown(heap, position[moved], fromLow ? lowSize : highSize, fromLow);
+    }
+
+    private void siftUp(int[] heap, int i, boolean max) {
+        int slot = heap[i];
+        while (i > 0 && above(slot, heap[(i - 1) / 2], max)) {
+            place(heap, heap[(i - 1) / 2], i);
+            i = (i - 1) / 2;
+        }
+        place(heap, slot, i);
+    }
+
+    private void siftDown(int[] heap, int i, int heapSize, boolean max) {
+        int slot = heap[i];
+        while (2 * i + 1 < heapSize) {
+            int child = 2 * i + 1;
+            if (child + 1 < heapSize && above(heap[child + 1], heap[child], max)) child++;
+            if (!above(heap[child], slot, max)) break;
+            place(heap, heap[child], i);
+            i = child;
+        }
+        place(heap, slot, i);
     }
 
-    double getTransaction() {
-        return this.transaction;
+    // Whether slot "a" should be closer to the top than slot "b"
+    private boolean above(int a, int b, boolean max) {
+        return max ? values[a] > values[b] : values[a] < values[b];
     }
 
-    Integer getDate() {
-        return this.date;
+    private void place(int[] heap, int slot, int i) {
+        heap[i] = slot;
+        position[slot] = i;
     }
 }
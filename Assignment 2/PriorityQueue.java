@@ -1,40 +1,43 @@
 package dsa;
 
-import java.text.ParseException;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
-
-import static java.util.Collections.swap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
 
 class TaskB {
-    public static void main(String[] args) throws ParseException {
-
-        Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
-        PriorityQueue<Integer, String> branches = new PriorityQueue<>();
+    public static void main(String[] args) throws IOException {
 
-        for (int i = 0; i <= n; i++) {
+        // Input is read from the file given as the first argument, or from stdin
+        FastReader reader = args.length > 0 ? new FastReader(Path.of(args[0])) : new FastReader(System.in);
+        FastWriter writer = new FastWriter(System.out);
+        int n = reader.nextInt();
+        IntKeyPriorityQueue<String> branches = new IntKeyPriorityQueue<>();
 
-            String line = sc.nextLine();
-            if (Objects.equals(line, "")) continue;
-            String[] tmp = line.split(" ");
+        for (int i = 0; i < n; i++) {
 
-            if (tmp.length == 3) {
-                int penalty = Integer.parseInt(tmp[2]);
-                String branchName = tmp[1];
-                PriorityQueue.BNode branch = branches.new BNode(penalty, branchName);
-                branches.insert(branch);
-            } else if (tmp.length == 1) {
-                System.out.println(branches.extractMin().value);
+            reader.skipToken();    // command name
+            if (!reader.atEndOfLine()) {
+                String branchName = reader.next();
+                int penalty = reader.nextInt();
+                branches.insert(penalty, branchName);
+            } else {
+                writer.println(branches.extractMin());
             }
 
         }
+        writer.flush();
     }
 }
 
 class PriorityQueue<K extends Comparable<K>, V extends Comparable <V>> implements IPriorityQueue<K, V, PriorityQueue<K, V>.BNode> {
     private final ArrayList<BNode> minHeap;
 
+    // Each node works as a handle: it keeps its own position in the heap, so it can be found in O(1)
     public class BNode extends Node<K, V> {
+        private int index = -1;
+
         BNode(K key, V value) {
             this.key = key;
             this.value = value;
@@ -45,6 +48,23 @@ class PriorityQueue<K extends Comparable<K>, V extends Comparable <V>> implement
         this.minHeap = new ArrayList<>();
     }
 
+    public PriorityQueue(int capacity) {
+        this.minHeap = new ArrayList<>(capacity);
+    }
+
+    // Building the queue from parallel arrays of keys and values in O(n) using Floyd's method
+    public static <K extends Comparable<K>, V extends Comparable<V>> PriorityQueue<K, V> of(K[] keys, V[] values) {
+        if (keys.length != values.length) throw new IllegalArgumentException("Keys and values should have the same length");
+
+        PriorityQueue<K, V> queue = new PriorityQueue<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            queue.append(queue.new BNode(keys[i], values[i]));
+        }
+        queue.heapify();
+
+        return queue;
+    }
+
     private int parent(int i) {
         // Retrieving parent of current element
         return ((i - 1) / 2);
@@ -92,84 +112,135 @@ class PriorityQueue<K extends Comparable<K>, V extends Comparable <V>> implement
 
         if (smallest != i) {
             // Swapping current element with the next found smaller element
-            swap(minHeap, i, smallest);
+            swap(i, smallest);
             minHeapify(smallest);
         }
     }
 
-    public void insert(BNode item) {
-        minHeap.add(item);
-        int i = size() - 1;
+    // Moving element up while it is lower than its parent, returns its final position
+    private int siftUp(int i) {
         // Swapping current and parent elements if current element key is lower than parent's
         // in case if those elements are equal, we compare their values
         while (i > 0 && ((less(minHeap.get(i).key, minHeap.get(parent(i)).key)) ||
                         (equal(minHeap.get(i).key, minHeap.get(parent(i)).key)) &&
                         (lessValue(minHeap.get(i).value, minHeap.get(parent(i)).value)))) {
-            swap(minHeap, i, parent(i));
+            swap(i, parent(i));
             i = parent(i);
         }
+        return i;
+    }
+
+    public void insert(BNode item) {
+        append(item);
+        siftUp(size() - 1);
     }
 
     public BNode findMin() {
+        if (minHeap.isEmpty()) throw new NoSuchElementException("Queue is empty");
         return minHeap.get(0);
     }
 
     public BNode extractMin() {
         BNode min = findMin();
         // Retrieving min element, which is located in the root
-        minHeap.set(0, minHeap.get(size() - 1));
-        // Replacing min element with the last one, to then restore the heap
-        minHeap.remove(size() - 1);
-        minHeapify(0);
+        removeAt(0);
 
         return min;
     }
 
     public void decreaseKey(BNode item, K newKey) {
-        // Deleting the previous occurrence of current item
-        delete(item);
-        // Creating new item with the new key and previous item value
-        BNode newItem = new BNode(newKey, item.value);
-        insert(newItem);
+        updateKey(item, newKey);
+    }
+
+    public void increaseKey(BNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    // Updating the key in place, the item goes up or down depending on the new key, so any key is accepted
+    private void updateKey(BNode item, K newKey) {
+        int i = indexOf(item);
+        item.key = newKey;
+        if (siftUp(i) == i) minHeapify(i);
     }
 
     public void delete(BNode item) {
-        // Finding the index of item in the heap
-        int i = findIndexOfItem(item);
+        // The item knows its own position, so no search is needed
+        removeAt(indexOf(item));
+    }
 
-        // Deleting the item
-        BNode tmp = minHeap.get(i);
-        minHeap.set(i, minHeap.get(size() - 1));
-        minHeap.set(size() - 1, tmp);
-        minHeap.remove(size() - 1);
+    private void removeAt(int i) {
+        BNode removed = minHeap.get(i);
+        int last = size() - 1;
 
-        // Restoring heap by performing multiple minHeapify
-        for (int j = (size() / 2) - 1; j >= 0; j--) {
-            minHeapify(j);
-        }
+        // Replacing removed element with the last one, to then restore the heap
+        if (i != last) swap(i, last);
+        minHeap.remove(last);
+        removed.index = -1;
+
+        // The element moved into position "i" can be either lower than its parent or greater than its children
+        if (i < size() && siftUp(i) == i) minHeapify(i);
     }
 
-    private int findIndexOfItem(BNode item) {
-        int i;
-        // Retrieving the index of item we need to remove
-        for (i = 0; i < size(); i++) {
-            if (item.key.equals(minHeap.get(i).key) && item.value.equals(minHeap.get(i).value)) {
-                break;
-            }
+    private int indexOf(BNode item) {
+        int i = item.index;
+        // Handle is valid only if the item is still located in this heap at remembered position
+        if (i < 0 || i >= size() || minHeap.get(i) != item) {
+            throw new NoSuchElementException("Item is not present in the queue");
         }
         return i;
     }
 
-    public void union(Object anotherQueue) {
-        PriorityQueue<K, V> queue = (PriorityQueue) anotherQueue;
+    public void union(IPriorityQueue<K, V, BNode> anotherQueue) {
+        if (anotherQueue == this) return;
 
-        // Adding elements from another queue to our queue
-        for (int i = 0; i < queue.size(); i++) {
-            minHeap.add(queue.extractMin());
+        if (anotherQueue instanceof PriorityQueue) {
+            // Taking all elements of another queue at once, since their order is restored below anyway
+            PriorityQueue<K, V> queue = (PriorityQueue<K, V>) anotherQueue;
+            for (BNode item : queue.minHeap) {
+                append(item);
+            }
+            queue.minHeap.clear();
+        } else {
+            // Adding elements from another queue to our queue until it becomes empty
+            while (!anotherQueue.isEmpty()) {
+                append(anotherQueue.extractMin());
+            }
         }
 
         // Restoring heap after merging two queues
-        for (int i = ((size() + queue.size()) / 2) - 1; i >= 0; i--) {
+        heapify();
+    }
+
+    /*
+     Inserting a batch of items. If the batch is large relative to the heap, sifting up every item
+     would cost more than rebuilding, so items are appended and the whole heap is restored in O(n)
+     */
+    @Override
+    public void insertAll(Collection<? extends BNode> items) {
+        int total = size() + items.size();
+        int height = 32 - Integer.numberOfLeadingZeros(total);
+        if ((long) items.size() * height < total) {
+            for (BNode item : items) {
+                insert(item);
+            }
+            return;
+        }
+
+        minHeap.ensureCapacity(total);
+        for (BNode item : items) {
+            append(item);
+        }
+        heapify();
+    }
+
+    private void append(BNode item) {
+        item.index = size();
+        minHeap.add(item);
+    }
+
+    // Floyd's bottom-up construction: every non-leaf node is sifted down, starting from the last one
+    private void heapify() {
+        for (int i = (size() / 2) - 1; i >= 0; i--) {
             minHeapify(i);
         }
     }
@@ -178,6 +249,20 @@ class PriorityQueue<K extends Comparable<K>, V extends Comparable <V>> implement
         return minHeap.size();
     }
 
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // Swapping two elements and updating positions they remember
+    private void swap(int i, int j) {
+        BNode first = minHeap.get(i);
+        BNode second = minHeap.get(j);
+        minHeap.set(i, second);
+        minHeap.set(j, first);
+        second.index = i;
+        first.index = j;
+    }
+
     // 3 methods below are used to compare keys or values of the heap
     private boolean less(K key1, K key2) {
         return key1.compareTo(key2) < 0;
@@ -193,6 +278,1161 @@ class PriorityQueue<K extends Comparable<K>, V extends Comparable <V>> implement
 
 }
 
+/*
+ Handle-based d-ary min-heap, arity is chosen at construction (2, 4, 8, ...).
+ Greater arity makes the heap shallower and keeps children of a node in one cache line,
+ at the price of more comparisons per level during sift-down. Both sifts are iterative
+ */
+class DaryPriorityQueue<K extends Comparable<K>, V extends Comparable<V>> implements IPriorityQueue<K, V, DaryPriorityQueue<K, V>.DNode> {
+    private final int arity;
+    private DNode[] heap;
+    private int size;
+
+    public class DNode extends Node<K, V> {
+        private int index = -1;
+
+        DNode(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public DaryPriorityQueue(int arity) {
+        if (arity < 2) throw new IllegalArgumentException("Arity should be at least 2");
+        this.arity = arity;
+        this.heap = (DNode[]) new DaryPriorityQueue<?, ?>.DNode[16];
+    }
+
+    private int parent(int i) {
+        return (i - 1) / arity;
+    }
+
+    private int firstChild(int i) {
+        return arity * i + 1;
+    }
+
+    // Moving parents down until the place for the node is found, the node itself is written once
+    private void siftUp(int i) {
+        DNode node = heap[i];
+        while (i > 0) {
+            int p = parent(i);
+            DNode parentNode = heap[p];
+            if (!less(node, parentNode)) break;
+            place(parentNode, i);
+            i = p;
+        }
+        place(node, i);
+    }
+
+    // Moving the smallest child up until the node is not greater than all its children
+    private void siftDown(int i) {
+        DNode node = heap[i];
+        while (true) {
+            int first = firstChild(i);
+            if (first >= size) break;
+
+            int last = Math.min(first + arity, size);
+            int smallest = first;
+            DNode smallestNode = heap[first];
+            for (int c = first + 1; c < last; c++) {
+                if (less(heap[c], smallestNode)) {
+                    smallest = c;
+                    smallestNode = heap[c];
+                }
+            }
+
+            if (!less(smallestNode, node)) break;
+            place(smallestNode, i);
+            i = smallest;
+        }
+        place(node, i);
+    }
+
+    public void insert(DNode item) {
+        if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+        place(item, size++);
+        siftUp(item.index);
+    }
+
+    public DNode findMin() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+        return heap[0];
+    }
+
+    public DNode extractMin() {
+        DNode min = findMin();
+        removeAt(0);
+        return min;
+    }
+
+    public void decreaseKey(DNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    public void increaseKey(DNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    // The item goes up or down depending on the new key, so any key is accepted
+    private void updateKey(DNode item, K newKey) {
+        int i = indexOf(item);
+        item.key = newKey;
+        siftUp(i);
+        if (item.index == i) siftDown(i);
+    }
+
+    public void delete(DNode item) {
+        removeAt(indexOf(item));
+    }
+
+    public void union(IPriorityQueue<K, V, DNode> anotherQueue) {
+        if (anotherQueue == this) return;
+
+        while (!anotherQueue.isEmpty()) {
+            DNode item = anotherQueue.extractMin();
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            place(item, size++);
+        }
+
+        // Restoring heap bottom-up, starting from the parent of the last element
+        if (size > 1) {
+            for (int i = parent(size - 1); i >= 0; i--) {
+                siftDown(i);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void removeAt(int i) {
+        DNode removed = heap[i];
+        DNode last = heap[--size];
+        heap[size] = null;
+        removed.index = -1;
+        if (i == size) return;
+
+        // The last element is moved into position "i" and goes either up or down
+        place(last, i);
+        siftUp(i);
+        if (last.index == i) siftDown(i);
+    }
+
+    private void place(DNode item, int i) {
+        heap[i] = item;
+        item.index = i;
+    }
+
+    private int indexOf(DNode item) {
+        int i = item.index;
+        if (i < 0 || i >= size || heap[i] != item) {
+            throw new NoSuchElementException("Item is not present in the queue");
+        }
+        return i;
+    }
+
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(DNode first, DNode second) {
+        int cmp = first.key.compareTo(second.key);
+        return cmp < 0 || (cmp == 0 && first.value.compareTo(second.value) < 0);
+    }
+
+}
+
+/*
+ Mergeable priority queue based on pairing heap.
+ Insert, findMin, decreaseKey and union (with another PairingHeap) take O(1),
+ extractMin, increaseKey and delete take amortized O(log n)
+ */
+class PairingHeap<K extends Comparable<K>, V extends Comparable<V>> implements IPriorityQueue<K, V, PairingHeap<K, V>.PNode> {
+    private PNode root;
+    private int size;
+    // Buffer for two-pass merging of root children, reused between extractions
+    private final ArrayList<PNode> pairs = new ArrayList<>();
+    private Owner owner = new Owner();
+
+    public class PNode extends Node<K, V> {
+        private PNode child;    // leftmost child
+        private PNode sibling;  // right sibling
+        private PNode prev;     // left sibling, or parent if node is the leftmost child
+        private Owner owner;    // token of the heap holding the node, null if it is in no heap
+
+        PNode(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    /*
+     Every heap has a token shared by its nodes. Melding another heap redirects the token of that heap
+     to the token of this one, so nodes find their heap by following tokens, like in a disjoint-set forest,
+     and union stays O(1) instead of relabeling every moved node
+     */
+    private static final class Owner {
+        private Owner parent;
+    }
+
+    public PairingHeap() {
+    }
+
+    public void insert(PNode item) {
+        item.child = null;
+        item.owner = owner;
+        detach(item);
+        root = meld(root, item);
+        size++;
+    }
+
+    public PNode findMin() {
+        if (root == null) throw new NoSuchElementException("Queue is empty");
+        return root;
+    }
+
+    public PNode extractMin() {
+        PNode min = findMin();
+        // Children of the root are merged into a new heap
+        root = mergePairs(min.child);
+        min.child = null;
+        min.owner = null;
+        size--;
+
+        return min;
+    }
+
+    public void decreaseKey(PNode item, K newKey) {
+        checkPresent(item);
+        item.key = newKey;
+        if (item == root) return;
+
+        // Cutting the subtree of item and melding it with the root, the subtree itself stays a valid heap
+        cut(item);
+        root = meld(root, item);
+    }
+
+    public void increaseKey(PNode item, K newKey) {
+        // Children may become lower than the item, so it has to be reinserted
+        delete(item);
+        item.key = newKey;
+        insert(item);
+    }
+
+    public void delete(PNode item) {
+        checkPresent(item);
+        if (item == root) {
+            extractMin();
+            return;
+        }
+
+        cut(item);
+        root = meld(root, mergePairs(item.child));
+        item.child = null;
+        item.owner = null;
+        size--;
+    }
+
+    /*
+     Melding another pairing heap takes O(1), queues of other types are drained one element at a time.
+     After union all elements (and their handles) belong to this queue and another queue is empty
+     */
+    public void union(IPriorityQueue<K, V, PNode> anotherQueue) {
+        if (anotherQueue == this) return;
+
+        if (anotherQueue instanceof PairingHeap) {
+            PairingHeap<K, V> queue = (PairingHeap<K, V>) anotherQueue;
+            root = meld(root, queue.root);
+            size += queue.size;
+            queue.owner.parent = owner;
+            queue.owner = new Owner();
+            queue.root = null;
+            queue.size = 0;
+        } else {
+            while (!anotherQueue.isEmpty()) {
+                insert(anotherQueue.extractMin());
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    // Linking two heaps, the root with greater key becomes the leftmost child of another root
+    private PNode meld(PNode first, PNode second) {
+        if (first == null) return second;
+        if (second == null) return first;
+
+        if (less(second, first)) {
+            PNode tmp = first;
+            first = second;
+            second = tmp;
+        }
+
+        second.prev = first;
+        second.sibling = first.child;
+        if (first.child != null) first.child.prev = second;
+        first.child = second;
+
+        return first;
+    }
+
+    // Standard two-pass merge: melding siblings pairwise from the left, then melding pairs from the right
+    private PNode mergePairs(PNode first) {
+        if (first == null) return null;
+
+        pairs.clear();
+        while (first != null) {
+            PNode second = first.sibling;
+            PNode next = second == null ? null : second.sibling;
+            detach(first);
+            if (second != null) detach(second);
+            pairs.add(meld(first, second));
+            first = next;
+        }
+
+        PNode result = pairs.get(pairs.size() - 1);
+        for (int i = pairs.size() - 2; i >= 0; i--) {
+            result = meld(pairs.get(i), result);
+        }
+        pairs.clear();
+
+        return result;
+    }
+
+    // Removing subtree of item from the list of its siblings
+    private void cut(PNode item) {
+        if (item.prev.child == item) {
+            item.prev.child = item.sibling;
+        } else {
+            item.prev.sibling = item.sibling;
+        }
+        if (item.sibling != null) item.sibling.prev = item.prev;
+        detach(item);
+    }
+
+    private void detach(PNode item) {
+        item.prev = null;
+        item.sibling = null;
+    }
+
+    // The item should belong to this heap, and every item except the root is linked to its parent or left sibling
+    private void checkPresent(PNode item) {
+        if (item.owner == null || (item.owner = find(item.owner)) != owner || (item != root && item.prev == null)) {
+            throw new NoSuchElementException("Item is not present in the queue");
+        }
+    }
+
+    // Following redirected tokens to the current one, halving the path on the way
+    private static Owner find(Owner token) {
+        while (token.parent != null) {
+            if (token.parent.parent != null) token.parent = token.parent.parent;
+            token = token.parent;
+        }
+        return token;
+    }
+
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(PNode first, PNode second) {
+        int cmp = first.key.compareTo(second.key);
+        return cmp < 0 || (cmp == 0 && first.value.compareTo(second.value) < 0);
+    }
+
+}
+
+/*
+ Concurrent relaxed priority queue (MultiQueue): elements are spread over several binary heaps (stripes),
+ each guarded by its own lock. Insert puts an item into a random stripe that can be locked without waiting,
+ extractMin samples two random stripes and takes the minimum of the one with the lower top.
+
+ Order is relaxed: extractMin does not always return the global minimum. With "c * p" stripes for "p" threads
+ the expected rank of an extracted item is O(c * p), and the rank error is O(c * p * log(c * p))
+ with high probability (Rihani, Sanders, Dementiev, "MultiQueues: Simple Relaxed Concurrent Priority Queues").
+ findMin, size and isEmpty are only snapshots when other threads modify the queue.
+ */
+class MultiQueue<K extends Comparable<K>, V extends Comparable<V>> implements IPriorityQueue<K, V, MultiQueue<K, V>.MNode> {
+    private final Stripe[] stripes;
+
+    public class MNode extends Node<K, V> {
+        // Stripe currently holding the node, changed only under the lock of that stripe
+        private volatile Stripe stripe;
+        private int index = -1;
+
+        MNode(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    // Binary min-heap of a single stripe, all methods should be called while holding its lock
+    private class Stripe {
+        private final ReentrantLock lock = new ReentrantLock();
+        @SuppressWarnings("unchecked")
+        private MNode[] heap = (MNode[]) new MultiQueue<?, ?>.MNode[16];
+        private volatile int size;
+        // Minimum of the stripe, published to let extractMin choose a stripe without locking
+        private volatile MNode top;
+
+        private void add(MNode item) {
+            if (size == heap.length) heap = Arrays.copyOf(heap, size * 2);
+            item.stripe = this;
+            place(item, size);
+            size = size + 1;
+            siftUp(item.index);
+            top = heap[0];
+        }
+
+        private MNode removeAt(int i) {
+            MNode removed = heap[i];
+            int lastIndex = size - 1;
+            MNode last = heap[lastIndex];
+            heap[lastIndex] = null;
+            size = lastIndex;
+            removed.stripe = null;
+            removed.index = -1;
+
+            if (i != lastIndex) {
+                // The last element is moved into position "i" and goes either up or down
+                place(last, i);
+                siftUp(i);
+                if (last.index == i) siftDown(i);
+            }
+            top = size > 0 ? heap[0] : null;
+
+            return removed;
+        }
+
+        private void siftUp(int i) {
+            MNode node = heap[i];
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!less(node, heap[parent])) break;
+                place(heap[parent], i);
+                i = parent;
+            }
+            place(node, i);
+        }
+
+        private void siftDown(int i) {
+            MNode node = heap[i];
+            int half = size / 2;
+            while (i < half) {
+                int child = 2 * i + 1;
+                if (child + 1 < size && less(heap[child + 1], heap[child])) child++;
+                if (!less(heap[child], node)) break;
+                place(heap[child], i);
+                i = child;
+            }
+            place(node, i);
+        }
+
+        private void place(MNode item, int i) {
+            heap[i] = item;
+            item.index = i;
+        }
+    }
+
+    public MultiQueue() {
+        this(2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    @SuppressWarnings("unchecked")
+    public MultiQueue(int numberOfStripes) {
+        if (numberOfStripes < 1) throw new IllegalArgumentException("Number of stripes should be positive");
+        stripes = (Stripe[]) new MultiQueue<?, ?>.Stripe[numberOfStripes];
+        for (int i = 0; i < numberOfStripes; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    public void insert(MNode item) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // Trying random stripes without waiting, and blocking on the last one if all of them were busy
+        Stripe stripe = null;
+        for (int attempt = 0; attempt < stripes.length && stripe == null; attempt++) {
+            Stripe candidate = stripes[random.nextInt(stripes.length)];
+            if (candidate.lock.tryLock()) stripe = candidate;
+        }
+        if (stripe == null) {
+            stripe = stripes[random.nextInt(stripes.length)];
+            stripe.lock.lock();
+        }
+
+        try {
+            stripe.add(item);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public MNode findMin() {
+        MNode min = null;
+        for (Stripe stripe : stripes) {
+            MNode top = stripe.top;
+            if (top != null && (min == null || less(top, min))) min = top;
+        }
+        if (min == null) throw new NoSuchElementException("Queue is empty");
+        return min;
+    }
+
+    public MNode extractMin() {
+        MNode min = poll();
+        if (min == null) throw new NoSuchElementException("Queue is empty");
+        return min;
+    }
+
+    // The same as extractMin, but returns null instead of throwing if the queue is empty
+    public MNode poll() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int attempt = 0; attempt < stripes.length; attempt++) {
+            // Power of two choices: taking the stripe with the lower top out of two random ones
+            Stripe first = stripes[random.nextInt(stripes.length)];
+            Stripe second = stripes[random.nextInt(stripes.length)];
+            MNode firstTop = first.top;
+            MNode secondTop = second.top;
+            if (firstTop == null && secondTop == null) continue;
+            Stripe chosen = secondTop == null || (firstTop != null && less(firstTop, secondTop)) ? first : second;
+
+            if (!chosen.lock.tryLock()) continue;
+            try {
+                if (chosen.size > 0) return chosen.removeAt(0);
+            } finally {
+                chosen.lock.unlock();
+            }
+        }
+
+        // Sampling failed, so the queue is almost empty or highly contended, checking every stripe
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.size > 0) return stripe.removeAt(0);
+            } finally {
+                stripe.lock.unlock();
+            }
+        }
+        return null;
+    }
+
+    public void decreaseKey(MNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    public void increaseKey(MNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    // The item goes up or down depending on the new key, so any key is accepted
+    private void updateKey(MNode item, K newKey) {
+        Stripe stripe = lockStripeOf(item);
+        try {
+            int i = item.index;
+            item.key = newKey;
+            stripe.siftUp(i);
+            if (item.index == i) stripe.siftDown(i);
+            stripe.top = stripe.heap[0];
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    public void delete(MNode item) {
+        Stripe stripe = lockStripeOf(item);
+        try {
+            stripe.removeAt(item.index);
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    // Moving elements one by one, so that other threads can keep using both queues
+    public void union(IPriorityQueue<K, V, MNode> anotherQueue) {
+        if (anotherQueue == this) return;
+
+        if (anotherQueue instanceof MultiQueue) {
+            MultiQueue<K, V> queue = (MultiQueue<K, V>) anotherQueue;
+            for (MNode item = queue.poll(); item != null; item = queue.poll()) {
+                insert(item);
+            }
+        } else {
+            while (!anotherQueue.isEmpty()) {
+                insert(anotherQueue.extractMin());
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size;
+        }
+        return size;
+    }
+
+    public boolean isEmpty() {
+        for (Stripe stripe : stripes) {
+            if (stripe.size > 0) return false;
+        }
+        return true;
+    }
+
+    // Locking the stripe holding the item, the item may be removed by another thread meanwhile
+    private Stripe lockStripeOf(MNode item) {
+        while (true) {
+            Stripe stripe = item.stripe;
+            if (stripe == null) throw new NoSuchElementException("Item is not present in the queue");
+            stripe.lock.lock();
+            if (item.stripe == stripe) return stripe;
+            stripe.lock.unlock();
+        }
+    }
+
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(MNode first, MNode second) {
+        int cmp = first.key.compareTo(second.key);
+        return cmp < 0 || (cmp == 0 && first.value.compareTo(second.value) < 0);
+    }
+
+}
+
+/*
+ Radix heap for integer keys, which requires extraction to be monotone: no key may become lower
+ than the last extracted minimum. Items are kept in buckets by the highest bit in which their key
+ differs from the last extracted minimum, so insert and decreaseKey take O(1) and extractMin takes
+ amortized O(log C), where C is the range of keys. Equal keys are extracted in arbitrary order.
+
+ If monotonicity is violated, the heap either throws IllegalArgumentException or, when created with
+ fallback enabled, moves all items into the binary PriorityQueue and keeps working as one from then on
+ */
+class RadixHeap<V extends Comparable<V>> implements IPriorityQueue<Integer, V, RadixHeap<V>.RNode> {
+    private static final int BUCKETS = Integer.SIZE + 1;
+
+    private final boolean fallbackAllowed;
+    private final ArrayList<ArrayList<RNode>> buckets = new ArrayList<>(BUCKETS);
+    private int last = Integer.MIN_VALUE;   // the last extracted minimum
+    private int size;
+    // Binary heap used after monotonicity was violated, its values are the nodes of this heap
+    private PriorityQueue<Integer, RNode> fallback;
+
+    public class RNode extends Node<Integer, V> implements Comparable<RNode> {
+        private int bucket;
+        private int index = -1;
+        private PriorityQueue<Integer, RNode>.BNode fallbackNode;
+
+        RNode(int key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        // Used by the fallback heap to break ties between equal keys
+        public int compareTo(RNode other) {
+            return value.compareTo(other.value);
+        }
+    }
+
+    public RadixHeap() {
+        this(false);
+    }
+
+    public RadixHeap(boolean fallbackAllowed) {
+        this.fallbackAllowed = fallbackAllowed;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.add(new ArrayList<>());
+        }
+    }
+
+    public void insert(RNode item) {
+        if (fallback == null && item.key < last) fallBack(item.key);
+        if (fallback != null) {
+            item.fallbackNode = fallback.new BNode(item.key, item);
+            fallback.insert(item.fallbackNode);
+        } else {
+            addToBucket(item);
+        }
+        size++;
+    }
+
+    public RNode findMin() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+        if (fallback != null) return fallback.findMin().value;
+
+        // All items of the first non-empty bucket are lower than items of the next buckets
+        ArrayList<RNode> bucket = buckets.get(firstNonEmptyBucket());
+        RNode min = bucket.get(0);
+        for (RNode item : bucket) {
+            if (item.key < min.key) min = item;
+        }
+        return min;
+    }
+
+    public RNode extractMin() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+        size--;
+        if (fallback != null) {
+            RNode min = fallback.extractMin().value;
+            min.fallbackNode = null;
+            return min;
+        }
+
+        int b = firstNonEmptyBucket();
+        if (b > 0) {
+            // Moving the new minimum into "last" and redistributing its bucket, every item goes to a lower bucket
+            ArrayList<RNode> bucket = buckets.get(b);
+            int min = bucket.get(0).key;
+            for (RNode item : bucket) {
+                min = Math.min(min, item.key);
+            }
+            last = min;
+            for (RNode item : bucket) {
+                addToBucket(item);
+            }
+            bucket.clear();
+        }
+
+        // Bucket 0 now contains only items with the key equal to "last"
+        ArrayList<RNode> bucket = buckets.get(0);
+        RNode min = bucket.remove(bucket.size() - 1);
+        min.index = -1;
+        return min;
+    }
+
+    public void decreaseKey(RNode item, Integer newKey) {
+        checkPresent(item);
+        updateKey(item, newKey);
+    }
+
+    public void increaseKey(RNode item, Integer newKey) {
+        checkPresent(item);
+        updateKey(item, newKey);
+    }
+
+    public void delete(RNode item) {
+        checkPresent(item);
+        if (fallback != null) {
+            fallback.delete(item.fallbackNode);
+            item.fallbackNode = null;
+        } else {
+            removeFromBucket(item);
+        }
+        size--;
+    }
+
+    public void union(IPriorityQueue<Integer, V, RNode> anotherQueue) {
+        if (anotherQueue == this) return;
+        while (!anotherQueue.isEmpty()) {
+            insert(anotherQueue.extractMin());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Whether the heap has switched to the binary heap because monotonicity was violated
+    public boolean isFallback() {
+        return fallback != null;
+    }
+
+    // Every key change is checked, a key can go below the last extracted minimum even through increaseKey
+    private void updateKey(RNode item, int newKey) {
+        if (fallback == null && newKey < last) fallBack(newKey);
+        if (fallback != null) {
+            if (newKey < item.key) {
+                fallback.decreaseKey(item.fallbackNode, newKey);
+            } else {
+                fallback.increaseKey(item.fallbackNode, newKey);
+            }
+            item.key = newKey;
+        } else {
+            removeFromBucket(item);
+            item.key = newKey;
+            addToBucket(item);
+        }
+    }
+
+    private void fallBack(int key) {
+        if (!fallbackAllowed) {
+            throw new IllegalArgumentException("Key " + key + " is lower than the last extracted minimum " + last);
+        }
+
+        ArrayList<PriorityQueue<Integer, RNode>.BNode> items = new ArrayList<>(size);
+        fallback = new PriorityQueue<>(size);
+        for (ArrayList<RNode> bucket : buckets) {
+            for (RNode item : bucket) {
+                item.index = -1;
+                item.fallbackNode = fallback.new BNode(item.key, item);
+                items.add(item.fallbackNode);
+            }
+            bucket.clear();
+        }
+        fallback.insertAll(items);
+    }
+
+    // Bucket of the key is defined by the highest bit in which it differs from the last extracted minimum
+    private void addToBucket(RNode item) {
+        item.bucket = Integer.SIZE - Integer.numberOfLeadingZeros(item.key ^ last);
+        ArrayList<RNode> bucket = buckets.get(item.bucket);
+        item.index = bucket.size();
+        bucket.add(item);
+    }
+
+    // Replacing the item by the last item of its bucket, since the order inside a bucket does not matter
+    private void removeFromBucket(RNode item) {
+        ArrayList<RNode> bucket = buckets.get(item.bucket);
+        RNode moved = bucket.remove(bucket.size() - 1);
+        if (moved != item) {
+            bucket.set(item.index, moved);
+            moved.index = item.index;
+        }
+        item.index = -1;
+    }
+
+    private int firstNonEmptyBucket() {
+        int b = 0;
+        while (buckets.get(b).isEmpty()) b++;
+        return b;
+    }
+
+    private void checkPresent(RNode item) {
+        boolean present = fallback != null ? item.fallbackNode != null
+                : item.index >= 0 && item.index < buckets.get(item.bucket).size()
+                && buckets.get(item.bucket).get(item.index) == item;
+        if (!present) throw new NoSuchElementException("Item is not present in the queue");
+    }
+
+}
+
+/*
+ Priority queue that keeps at most "capacity" lowest items. Items are stored in a min-max heap
+ (levels alternate between min and max ordering), so both the lowest and the greatest item are
+ available in O(1). When the queue is full, inserting an item evicts the greatest one in O(log k),
+ and memory stays proportional to the capacity instead of the number of inserted items
+ */
+class BoundedPriorityQueue<K extends Comparable<K>, V extends Comparable<V>> implements IPriorityQueue<K, V, BoundedPriorityQueue<K, V>.MMNode> {
+    private final MMNode[] heap;
+    private int size;
+    private long evictions;
+
+    public class MMNode extends Node<K, V> {
+        private int index = -1;
+
+        MMNode(K key, V value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public BoundedPriorityQueue(int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Capacity should be positive");
+        this.heap = (MMNode[]) new BoundedPriorityQueue<?, ?>.MMNode[capacity];
+    }
+
+    public void insert(MMNode item) {
+        offer(item);
+    }
+
+    // Inserting the item and returning the evicted one (possibly the item itself), or null if nothing was evicted
+    public MMNode offer(MMNode item) {
+        if (size < heap.length) {
+            place(item, size++);
+            pushUp(item.index);
+            return null;
+        }
+
+        evictions++;
+        int max = maxIndex();
+        MMNode worst = heap[max];
+        if (!less(item, worst)) return item;
+
+        // The item takes the place of the evicted greatest item and is moved to its position
+        worst.index = -1;
+        place(item, max);
+        restore(max);
+        return worst;
+    }
+
+    public MMNode findMin() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+        return heap[0];
+    }
+
+    public MMNode findMax() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+        return heap[maxIndex()];
+    }
+
+    public MMNode extractMin() {
+        MMNode min = findMin();
+        removeAt(0);
+        return min;
+    }
+
+    public MMNode extractMax() {
+        MMNode max = findMax();
+        removeAt(max.index);
+        return max;
+    }
+
+    public void decreaseKey(MMNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    public void increaseKey(MMNode item, K newKey) {
+        updateKey(item, newKey);
+    }
+
+    public void delete(MMNode item) {
+        removeAt(indexOf(item));
+    }
+
+    // Items of another queue are offered one by one, so only the lowest "capacity" items are kept
+    public void union(IPriorityQueue<K, V, MMNode> anotherQueue) {
+        if (anotherQueue == this) return;
+        while (!anotherQueue.isEmpty()) {
+            offer(anotherQueue.extractMin());
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return heap.length;
+    }
+
+    // Number of items dropped because the queue was full, including rejected inserted items
+    public long evictions() {
+        return evictions;
+    }
+
+    private void updateKey(MMNode item, K newKey) {
+        int i = indexOf(item);
+        item.key = newKey;
+        restore(i);
+    }
+
+    private void removeAt(int i) {
+        MMNode removed = heap[i];
+        MMNode last = heap[--size];
+        heap[size] = null;
+        removed.index = -1;
+        if (i == size) return;
+
+        place(last, i);
+        restore(i);
+    }
+
+    /*
+     Restoring the heap after the item at position "i" was replaced. The item is moved down first:
+     it stops only where it fits its descendants, so moving it up afterwards never breaks the levels below
+     */
+    private void restore(int i) {
+        MMNode item = heap[i];
+        trickleDown(i);
+        pushUp(item.index);
+    }
+
+    // The greatest item is located on one of the two max levels below the root
+    private int maxIndex() {
+        if (size <= 2) return size - 1;
+        return less(heap[1], heap[2]) ? 2 : 1;
+    }
+
+    // Levels with even depth are min levels, levels with odd depth are max levels
+    private boolean isMinLevel(int i) {
+        return ((31 - Integer.numberOfLeadingZeros(i + 1)) & 1) == 0;
+    }
+
+    private void pushUp(int i) {
+        if (i == 0) return;
+        int parent = (i - 1) / 2;
+        boolean minLevel = isMinLevel(i);
+
+        // If the item is out of order with its parent, it belongs to the levels of the opposite kind
+        if (minLevel ? less(heap[parent], heap[i]) : less(heap[i], heap[parent])) {
+            swap(i, parent);
+            pushUpGrandparents(parent, !minLevel);
+        } else {
+            pushUpGrandparents(i, minLevel);
+        }
+    }
+
+    private void pushUpGrandparents(int i, boolean minLevel) {
+        while (i > 2) {
+            int grandparent = ((i - 1) / 2 - 1) / 2;
+            if (minLevel ? !less(heap[i], heap[grandparent]) : !less(heap[grandparent], heap[i])) break;
+            swap(i, grandparent);
+            i = grandparent;
+        }
+    }
+
+    private void trickleDown(int i) {
+        boolean minLevel = isMinLevel(i);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) return;
+
+            // Choosing the lowest (or the greatest on max level) item among children and grandchildren
+            int best = child;
+            int last = Math.min(4 * i + 6, size - 1);
+            for (int j = child + 1; j <= last; j++) {
+                if (j == 2 * i + 3) j = 4 * i + 3;    // skipping to grandchildren after both children
+                if (j > last) break;
+                if (minLevel ? less(heap[j], heap[best]) : less(heap[best], heap[j])) best = j;
+            }
+
+            if (minLevel ? !less(heap[best], heap[i]) : !less(heap[i], heap[best])) return;
+            swap(best, i);
+            if (best <= child + 1) return;
+
+            // The grandchild moved down might be out of order with its new parent
+            int parent = (best - 1) / 2;
+            if (minLevel ? less(heap[parent], heap[best]) : less(heap[best], heap[parent])) swap(best, parent);
+            i = best;
+        }
+    }
+
+    private void swap(int i, int j) {
+        MMNode first = heap[i];
+        place(heap[j], i);
+        place(first, j);
+    }
+
+    private void place(MMNode item, int i) {
+        heap[i] = item;
+        item.index = i;
+    }
+
+    private int indexOf(MMNode item) {
+        int i = item.index;
+        if (i < 0 || i >= size || heap[i] != item) {
+            throw new NoSuchElementException("Item is not present in the queue");
+        }
+        return i;
+    }
+
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(MMNode first, MMNode second) {
+        int cmp = first.key.compareTo(second.key);
+        return cmp < 0 || (cmp == 0 && first.value.compareTo(second.value) < 0);
+    }
+
+}
+
+/*
+ Binary min-heap with primitive int keys, stored as parallel arrays of keys and values.
+ Nothing is boxed or allocated on insert (except for growing arrays), ties between equal keys are broken by values
+ */
+class IntKeyPriorityQueue<V extends Comparable<V>> {
+    private int[] keys;
+    private V[] values;
+    private int size;
+
+    public IntKeyPriorityQueue() {
+        this(16);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IntKeyPriorityQueue(int capacity) {
+        keys = new int[Math.max(capacity, 1)];
+        values = (V[]) new Comparable<?>[keys.length];
+    }
+
+    public void insert(int key, V value) {
+        if (size == keys.length) grow();
+        int i = size++;
+        // Moving parents down instead of swapping, so the new element is written only once
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!less(key, value, keys[parent], values[parent])) break;
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    public int minKey() {
+        checkNotEmpty();
+        return keys[0];
+    }
+
+    public V minValue() {
+        checkNotEmpty();
+        return values[0];
+    }
+
+    public V extractMin() {
+        V min = minValue();
+        // Replacing min element with the last one, to then restore the heap
+        int last = --size;
+        int key = keys[last];
+        V value = values[last];
+        values[last] = null;
+        if (last > 0) siftDown(key, value);
+
+        return min;
+    }
+
+    private void siftDown(int key, V value) {
+        int i = 0;
+        int half = size >>> 1;
+        // Only positions in the first half of the array have children
+        while (i < half) {
+            int child = 2 * i + 1;
+            int right = child + 1;
+            if (right < size && less(keys[right], values[right], keys[child], values[child])) child = right;
+            if (!less(keys[child], values[child], key, value)) break;
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    private void grow() {
+        keys = Arrays.copyOf(keys, keys.length * 2);
+        values = Arrays.copyOf(values, keys.length);
+    }
+
+    private void checkNotEmpty() {
+        if (size == 0) throw new NoSuchElementException("Queue is empty");
+    }
+
+    // Comparing by keys, and by values if keys are equal
+    private boolean less(int key1, V value1, int key2, V value2) {
+        return key1 < key2 || (key1 == key2 && value1.compareTo(value2) < 0);
+    }
+
+}
+
 class Node<K, V> {
     K key;
     V value;
@@ -212,7 +1452,28 @@ interface IPriorityQueue<K, V, N extends Node<K, V>> {
 
     void decreaseKey(N item, K newKey);
 
+    void increaseKey(N item, K newKey);
+
     void delete(N item);
 
-    void union(Object anotherQueue);
+    // Moves all elements of another queue into this one, leaving another queue empty
+    void union(IPriorityQueue<K, V, N> anotherQueue);
+
+    boolean isEmpty();
+
+    default void insertAll(Collection<? extends N> items) {
+        for (N item : items) {
+            insert(item);
+        }
+    }
+
+    // Extracting at most k smallest items into the sink in ascending order, returns the number of moved items
+    default int drainTo(Collection<? super N> sink, int k) {
+        int count = 0;
+        while (count < k && !isEmpty()) {
+            sink.add(extractMin());
+            count++;
+        }
+        return count;
+    }
 }
\ No newline at end of file
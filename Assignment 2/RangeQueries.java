@@ -1,47 +1,94 @@
 package dsa;
 
-import java.text.ParseException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
 
 class Main {
-    public static void main(String[] args) throws ParseException {
+    public static void main(String[] args) throws IOException {
+        /*
+         With "--accumulate" transactions of the same date are summed into a single entry,
+         so the tree grows with the number of distinct dates instead of the number of transactions.
+         Statements only need sums, so the output is the same in both modes.
+         With "--cache N" sums of the last N statement ranges are cached until a transaction falls inside them
+         */
+        boolean accumulate = false;
+        int cacheCapacity = 0;
+        Path file = null;
+        for (int a = 0; a < args.length; a++) {
+            if (args[a].equals("--accumulate")) {
+                accumulate = true;
+            } else if (args[a].equals("--cache")) {
+                cacheCapacity = Integer.parseInt(args[++a]);
+            } else {
+                file = Path.of(args[a]);
+            }
+        }
 
-        RangeQueries<String, Integer> history = new RangeQueries<>(20);  // initial degree of BTree
-        Scanner sc = new Scanner(System.in);
-        int n = sc.nextInt();
+        // Dates are parsed into yyyyMMdd integers, which are ordered the same way as date strings
+        IntRangeQueries<Integer> history = new IntRangeQueries<>(20, Monoid.INT_SUM);  // initial degree of BTree
+        CachedRangeQueries<Integer, Integer> cache = cacheCapacity > 0
+                ? new CachedRangeQueries<>(history, cacheCapacity) : null;
+        FastReader reader = file != null ? new FastReader(file) : new FastReader(System.in);
+        FastWriter writer = new FastWriter(System.out);
+        int n = reader.nextInt();
 
-        for (int i = 0; i <= n; i++) {
-            String line = sc.nextLine();
-            String[] tmp = line.split(" ");
+        for (int i = 0; i < n; i++) {
+            int first = reader.peek();
 
-            if (tmp.length == 3) {
-                String date = tmp[0];
-                String command = tmp[1];
-                Integer amount = Integer.parseInt(tmp[2]);
+            if (first >= '0' && first <= '9') {
+                // "date command amount"
+                int date = reader.nextDate();
+                int command = reader.peek();
+                reader.skipToken();
+                int amount = reader.nextInt();
 
-                if (command.equals("DEPOSIT")) {
-                    history.add(date, amount);
-                } else if (command.equals("WITHDRAW")) {
-                    history.add(date, -amount);
-                }
+                if (command == 'W') amount = -amount;
+                if (command != 'D' && command != 'W') continue;
 
-            } else if (tmp.length == 5) {
-                int sum = 0;
-                String fromDate = tmp[2];
-                String toDate = tmp[4];
-                List<Integer> balance = history.lookupRange(fromDate, toDate);
-                if (balance != null && !balance.isEmpty()) {
-                    for (int transaction : balance) {
-                        sum += transaction;
-                    }
-                    System.out.println(sum);
+                if (cache != null) {
+                    if (accumulate) cache.merge(date, amount, Integer::sum);
+                    else cache.add(date, amount);
+                } else if (accumulate) {
+                    history.mergeInt(date, amount, Integer::sum);
                 } else {
-                    System.out.println(0);
+                    history.addInt(date, amount);
                 }
+
+            } else {
+                // "BANK STATEMENT fromDate TO toDate"
+                reader.skipToken();
+                reader.skipToken();
+                int fromDate = reader.nextDate();
+                reader.skipToken();
+                int toDate = reader.nextDate();
+                // Sum is taken from aggregates of subtrees, without collecting transactions of the range
+                writer.println(cache != null ? cache.aggregateRange(fromDate, toDate, Monoid.INT_SUM)
+                        : history.aggregateRange(fromDate, toDate, Monoid.INT_SUM));
             }
         }
+        writer.flush();
     }
 }
 
@@ -50,15 +97,40 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
     private final int degree;
     private Node<K, V> root;
     private int numberOfKeys = 0;
+    // Monoid whose aggregates are kept in every node, or null if the tree is not augmented
+    private final Monoid<V, Object> monoid;
+
+    /*
+     In copy-on-write mode every write has its own generation, and only nodes of the current generation
+     are changed in place. Older nodes may be shared with snapshots, so they are copied first,
+     which copies exactly the nodes on the modified path
+     */
+    private final boolean copyOnWrite;
+    private final boolean readOnly;
+    private long generation = 0;
+    // Root and size after the last completed write, read by snapshot from any thread
+    private volatile Version<K, V> published;
 
     private static class Node<K, V> {
         int n;
         boolean leaf = true;
         Node<K, V>[] child;
         Entry<K, V>[] entries;
-        private Node(int deg) {
+        Object aggregate;    // aggregate of all values in the subtree, in key order
+        final long generation;
+        private Node(int deg, long generation) {
             this.entries = new Entry[2 * deg - 1];
             this.child = new Node[2 * deg];
+            this.generation = generation;
+        }
+    }
+
+    private static class Version<K, V> {
+        final Node<K, V> root;
+        final int size;
+        private Version(Node<K, V> root, int size) {
+            this.root = root;
+            this.size = size;
         }
     }
 
@@ -72,12 +144,136 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
     }
 
     public RangeQueries(int t) {
-        root = new Node<>(t);
+        this(t, null);
+    }
+
+    // Augmented tree: every node keeps the aggregate of its subtree, which lets aggregateRange run in O(log n)
+    public RangeQueries(int t, Monoid<V, ?> monoid) {
+        this(t, monoid, false);
+    }
+
+    // Tree whose writes copy the nodes they change instead of changing them in place, which allows snapshots
+    @SuppressWarnings("unchecked")
+    public RangeQueries(int t, Monoid<V, ?> monoid, boolean copyOnWrite) {
+        root = new Node<>(t, 0);
         root.leaf = true;
         root.n = 0;    // initial amount of keys is 0
         degree = t;
+        this.monoid = (Monoid<V, Object>) monoid;
+        if (monoid != null) root.aggregate = monoid.identity();
+        this.copyOnWrite = copyOnWrite;
+        this.readOnly = false;
+        publish();
+    }
+
+    // Snapshot: the same nodes as in "source" at "version", which are never changed again
+    private RangeQueries(RangeQueries<K, V> source, Version<K, V> version) {
+        degree = source.degree;
+        monoid = source.monoid;
+        root = version.root;
+        numberOfKeys = version.size;
+        copyOnWrite = false;
+        readOnly = true;
+    }
+
+    /*
+     Read-only view of the tree as of the last completed write, taken in O(1). It may be called from any thread
+     and read there while writes go on, since writes never touch the nodes the snapshot can see
+     */
+    public RangeMap<K, V> snapshot() {
+        if (!copyOnWrite) throw new IllegalStateException("Snapshots need a tree in copy-on-write mode");
+        return new RangeQueries<>(this, published);
+    }
+
+    // Building the tree bottom-up from parallel arrays of keys and values, sorted by key, in O(n)
+    public static <K extends Comparable<K>, V> RangeQueries<K, V> bulkLoad(int t, Monoid<V, ?> monoid,
+                                                                           K[] keys, V[] values, double fillFactor) {
+        if (keys.length != values.length) throw new IllegalArgumentException("Keys and values should have the same length");
+        ArrayList<Entry<K, V>> entries = new ArrayList<>(keys.length);
+        for (int i = 0; i < keys.length; i++) {
+            entries.add(new Entry<>(keys[i], values[i]));
+        }
+
+        RangeQueries<K, V> tree = new RangeQueries<>(t, monoid);
+        tree.load(entries, fillFactor);
+        return tree;
+    }
+
+    // The same for a stream of entries sorted by key, e.g. read from a history file
+    public static <K extends Comparable<K>, V> RangeQueries<K, V> bulkLoad(int t, Monoid<V, ?> monoid,
+                                                                           Iterator<? extends Map.Entry<K, V>> sorted,
+                                                                           double fillFactor) {
+        ArrayList<Entry<K, V>> entries = new ArrayList<>();
+        while (sorted.hasNext()) {
+            Map.Entry<K, V> entry = sorted.next();
+            entries.add(new Entry<>(entry.getKey(), entry.getValue()));
+        }
+
+        RangeQueries<K, V> tree = new RangeQueries<>(t, monoid);
+        tree.load(entries, fillFactor);
+        return tree;
     }
 
+    /*
+     Building levels from the leaves up. Entries of a level are cut into nodes of about "fillFactor * (2t - 1)"
+     entries, and the single entry between two neighbouring nodes goes up to the next level,
+     whose nodes get the nodes built here as children. The process stops when a level fits into one node
+     */
+    private void load(ArrayList<Entry<K, V>> entries, double fillFactor) {
+        if (!(fillFactor > 0 && fillFactor <= 1)) throw new IllegalArgumentException("Fill factor should be in (0, 1]");
+        for (int i = 1; i < entries.size(); i++) {
+            if (less(entries.get(i).key, entries.get(i - 1).key)) {
+                throw new IllegalArgumentException("Entries should be sorted by key");
+            }
+        }
+
+        int maxKeys = 2 * degree - 1;
+        int target = Math.max(Math.max(degree - 1, 1), Math.min(maxKeys, (int) Math.round(fillFactor * maxKeys)));
+        ArrayList<Entry<K, V>> items = entries;
+        ArrayList<Node<K, V>> children = null;
+
+        while (true) {
+            int m = items.size();
+            int nodes = 1;
+            if (m > maxKeys) {
+                // Every node except the root must have between "degree - 1" and "2 * degree - 1" keys
+                int fewest = (m + 2 * degree) / (2 * degree);
+                int most = (m + 1) / degree;
+                nodes = Math.max(fewest, Math.min(most, (int) Math.round((m + 1) / (double) (target + 1))));
+            }
+
+            ArrayList<Node<K, V>> level = new ArrayList<>(nodes);
+            ArrayList<Entry<K, V>> up = new ArrayList<>(nodes - 1);
+            int keysInNodes = m - (nodes - 1);
+            int item = 0, childIndex = 0;
+
+            for (int j = 0; j < nodes; j++) {
+                Node<K, V> x = new Node<>(degree, generation);
+                x.leaf = children == null;
+                x.n = keysInNodes / nodes + (j < keysInNodes % nodes ? 1 : 0);
+                for (int e = 0; e < x.n; e++) {
+                    x.entries[e] = items.get(item++);
+                }
+                if (!x.leaf) {
+                    for (int c = 0; c <= x.n; c++) {
+                        x.child[c] = children.get(childIndex++);
+                    }
+                }
+                recomputeAggregate(x);
+                level.add(x);
+                if (j < nodes - 1) up.add(items.get(item++));
+            }
+
+            if (nodes == 1) {
+                root = level.get(0);
+                break;
+            }
+            items = up;
+            children = level;
+        }
+        numberOfKeys = entries.size();
+        publish();
+    }
 
     // Searching for a value by key
     private V search(Node<K, V> x, K key) {
@@ -99,7 +295,7 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
 
     // Splitting a node
     private void split(Node<K, V> x, int position) {
-        Node<K, V> newNode = new Node<>(degree);
+        Node<K, V> newNode = new Node<>(degree, generation);
         /* oldNode originally has "2 * degree" children ("2 * degree - 1" keys)
            after executing split it is reduced to "degree" children ("degree - 1" keys) */
         Node<K, V> oldNode = x.child[position];
@@ -127,15 +323,21 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
 
         x.entries[position] = oldNode.entries[degree - 1];
         x.n = x.n + 1;
+
+        // Aggregate of "x" itself does not change, since its subtree keeps the same entries
+        recomputeAggregate(oldNode);
+        recomputeAggregate(newNode);
     }
 
     // Inserting a key-value entry in tree
     public void add(K key, V value) {
+        startWrite();
         numberOfKeys++;
-        Node<K, V> r = root;
+        Node<K, V> r = writable(root);
+        root = r;
         Entry<K, V> e = new Entry<>(key, value);
         if (r.n == 2 * degree - 1) {
-            Node<K, V> s = new Node<>(degree);
+            Node<K, V> s = new Node<>(degree, generation);
             root = s;
             s.leaf = false;
             s.n = 0;
@@ -150,6 +352,64 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
         } else {
             insertNonFull(r, e);
         }
+        publish();
+    }
+
+    // Combining "value" into the value of an existing "key" with "remapping", or inserting a new entry if it is absent
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        startWrite();
+        Node<K, V> r = privateMerge(root, key, value, remapping);
+        if (r == null) {
+            add(key, value);
+        } else {
+            root = r;
+            publish();
+        }
+    }
+
+    /*
+     Replacing the first entry with "key" met on the way down and returning the node which now holds
+     this subtree, or null if the key is absent. Only the nodes on the path to the entry change,
+     so they are made writable and get their aggregates recomputed on the way back
+     */
+    private Node<K, V> privateMerge(Node<K, V> x, K key, V value, BinaryOperator<V> remapping) {
+        int i = 0;
+        while (i < x.n && less(x.entries[i].key, key)) i++;
+
+        if (i < x.n && equal(key, x.entries[i].key)) {
+            V merged = remapping.apply(x.entries[i].value, value);
+            x = writable(x);
+            x.entries[i] = new Entry<>(key, merged);
+        } else {
+            if (x.leaf) return null;
+            Node<K, V> child = privateMerge(x.child[i], key, value, remapping);
+            if (child == null) return null;
+            x = writable(x);
+            x.child[i] = child;
+        }
+        recomputeAggregate(x);
+        return x;
+    }
+
+    private void startWrite() {
+        if (readOnly) throw new UnsupportedOperationException("Snapshot is read-only");
+        if (copyOnWrite) generation++;
+    }
+
+    private void publish() {
+        if (copyOnWrite) published = new Version<>(root, numberOfKeys);
+    }
+
+    // Node "x" itself if the current write may change it, otherwise its copy made for this write
+    private Node<K, V> writable(Node<K, V> x) {
+        if (x.generation == generation) return x;
+        Node<K, V> copy = new Node<>(degree, generation);
+        copy.n = x.n;
+        copy.leaf = x.leaf;
+        copy.aggregate = x.aggregate;
+        System.arraycopy(x.entries, 0, copy.entries, 0, x.n);
+        if (!x.leaf) System.arraycopy(x.child, 0, copy.child, 0, x.n + 1);
+        return copy;
     }
 
     // Handling the case when we are inserting into non-full root node
@@ -162,6 +422,7 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
             }
             x.entries[i + 1] = e;
             x.n = x.n + 1;
+            recomputeAggregate(x);
         } else {
             /*
             If "x" is not a leaf node, we have to insert entry "e"
@@ -169,7 +430,8 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
              */
             while(i >= 0 && less(e.key, x.entries[i].key)) i--;
             i++;
-            Node<K, V> nextNode = x.child[i];
+            Node<K, V> nextNode = writable(x.child[i]);
+            x.child[i] = nextNode;
             if (nextNode.n == 2 * degree - 1) {
                 /*
                  If the recursion descends to a full child,
@@ -179,9 +441,21 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
                 if (less(x.entries[i].key, e.key)) i++;  // determining to which children we should descend to
             }
             insertNonFull(x.child[i], e);
+            recomputeAggregate(x);
         }
     }
 
+    private void recomputeAggregate(Node<K, V> x) {
+        if (monoid == null) return;
+        Object aggregate = monoid.identity();
+        for (int i = 0; i < x.n; i++) {
+            if (!x.leaf) aggregate = monoid.combine(aggregate, x.child[i].aggregate);
+            aggregate = monoid.combine(aggregate, monoid.lift(x.entries[i].value));
+        }
+        if (!x.leaf) aggregate = monoid.combine(aggregate, x.child[x.n].aggregate);
+        x.aggregate = aggregate;
+    }
+
     public V lookup(K key) {
         // Getting the value by key, by searching from the root node
         return search(root, key);
@@ -214,6 +488,71 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
         return result;
     }
 
+    // Calling "visitor" for every entry in key order
+    public void forEach(BiConsumer<? super K, ? super V> visitor) {
+        privateForEach(root, visitor);
+    }
+
+    private void privateForEach(Node<K, V> x, BiConsumer<? super K, ? super V> visitor) {
+        for (int i = 0; i < x.n; i++) {
+            if (!x.leaf) privateForEach(x.child[i], visitor);
+            visitor.accept(x.entries[i].key, x.entries[i].value);
+        }
+        if (!x.leaf) privateForEach(x.child[x.n], visitor);
+    }
+
+    // Calling "visitor" for every entry with the key in [from, to] in key order, without collecting them
+    public void forEachInRange(K from, K to, BiConsumer<? super K, ? super V> visitor) {
+        privateForEachInRange(root, from, to, visitor);
+    }
+
+    private void privateForEachInRange(Node<K, V> x, K from, K to, BiConsumer<? super K, ? super V> visitor) {
+        int entry = 0;
+        while (entry < x.n && less(x.entries[entry].key, from)) entry++;
+        for (; entry < x.n && !less(to, x.entries[entry].key); entry++) {
+            if (!x.leaf) privateForEachInRange(x.child[entry], from, to, visitor);
+            visitor.accept(x.entries[entry].key, x.entries[entry].value);
+        }
+        if (!x.leaf) privateForEachInRange(x.child[entry], from, to, visitor);
+    }
+
+    /*
+     If "monoid" is the one the tree was augmented with, subtrees lying entirely inside the range
+     are taken from stored aggregates, so only two root-to-leaf paths are visited
+     */
+    @SuppressWarnings("unchecked")
+    public <A> A aggregateRange(K from, K to, Monoid<V, A> monoid) {
+        if (monoid != this.monoid) return RangeMap.super.aggregateRange(from, to, monoid);
+        return (A) privateAggregateRange(root, from, to, false, false);
+    }
+
+    /*
+     "aboveFrom" and "belowTo" tell that all keys of the subtree are already known to be within
+     the corresponding bound. Keys of child "i" lie between keys of entries "i - 1" and "i" inclusive
+     */
+    private Object privateAggregateRange(Node<K, V> x, K from, K to, boolean aboveFrom, boolean belowTo) {
+        if (aboveFrom && belowTo) return x.aggregate;
+        Object result = monoid.identity();
+
+        for (int i = 0; i <= x.n; i++) {
+            if (i > 0 && less(to, x.entries[i - 1].key)) break;  // the rest of the node is beyond the interval
+
+            if (!x.leaf && (i == x.n || !less(x.entries[i].key, from))) {
+                boolean childAboveFrom = aboveFrom || (i > 0 && !less(x.entries[i - 1].key, from));
+                boolean childBelowTo = belowTo || (i < x.n && !less(to, x.entries[i].key));
+                result = monoid.combine(result, privateAggregateRange(x.child[i], from, to, childAboveFrom, childBelowTo));
+            }
+
+            if (i < x.n) {
+                K entryKey = x.entries[i].key;
+                if (!less(entryKey, from) && !less(to, entryKey)) {
+                    result = monoid.combine(result, monoid.lift(x.entries[i].value));
+                }
+            }
+        }
+        return result;
+    }
+
     public int size() {
         return numberOfKeys;
     }
@@ -235,12 +574,1753 @@ class RangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
     }
 }
 
-interface RangeMap<K, V> {
-    int size();
-    boolean isEmpty();
-    void add(K key, V value);
-    boolean contains(K key);
-    V lookup(K key);
-    List<V> lookupRange(K from, K to);
+/*
+ Write-optimized front-end of RangeQueries. New entries are absorbed by a small sorted memtable,
+ which is flushed into the tree in a batch once it holds "capacity" entries. A batch that is small compared
+ to the tree is inserted in key order, so consecutive insertions descend along the same path,
+ and a large one is merged with all entries of the tree into a new bulk-loaded tree.
+ Lookups merge the memtable with the tree, so buffered entries are visible right away
+ */
+class BufferedRangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
+    // Rebuilt nodes are left with free room, so the next flush does not split nearly every node on its paths
+    private static final double FILL_FACTOR = 0.7;
+
+    private final int degree;
+    private final Monoid<V, ?> monoid;
+    private final int capacity;
+    private RangeQueries<K, V> tree;
+    // Values of equal keys are kept in insertion order
+    private final TreeMap<K, ArrayList<V>> memtable = new TreeMap<>();
+    private int buffered = 0;
+
+    private long flushes = 0;
+    private long flushNanos = 0;
+    private long entriesFlushed = 0;
+    private long entriesWritten = 0;
+
+    public BufferedRangeQueries(int t, int capacity) {
+        this(t, null, capacity);
+    }
+
+    public BufferedRangeQueries(int t, Monoid<V, ?> monoid, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Memtable capacity should be positive");
+        this.degree = t;
+        this.monoid = monoid;
+        this.capacity = capacity;
+        this.tree = new RangeQueries<>(t, monoid);
+    }
+
+    public void add(K key, V value) {
+        memtable.computeIfAbsent(key, k -> new ArrayList<>(1)).add(value);
+        if (++buffered == capacity) flush();
+    }
+
+    /*
+     An existing value is updated where it is, only a new key goes through the memtable. As in the tree,
+     a key with several values has only one of them changed, the one lookup returns, so the tree goes first
+     */
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        ArrayList<V> values = memtable.get(key);
+        if (tree.contains(key)) {
+            tree.merge(key, value, remapping);
+        } else if (values != null) {
+            values.set(0, remapping.apply(values.get(0), value));
+        } else {
+            add(key, value);
+        }
+    }
+
+    /*
+     Moving all buffered entries into the tree. Inserting "m" entries one by one into a tree of "n" costs
+     about m * log(n + m), rebuilding it costs n + m, so the cheaper of the two is chosen
+     */
+    public void flush() {
+        if (buffered == 0) return;
+        long start = System.nanoTime();
+        int total = tree.size() + buffered;
+
+        if (buffered * (Math.log(total) / Math.log(2)) < total) {
+            for (Map.Entry<K, ArrayList<V>> entry : memtable.entrySet()) {
+                for (V value : entry.getValue()) {
+                    tree.add(entry.getKey(), value);
+                }
+            }
+            entriesWritten += buffered;
+        } else {
+            rebuild(total);
+            entriesWritten += total;
+        }
+
+        entriesFlushed += buffered;
+        memtable.clear();
+        buffered = 0;
+        flushes++;
+        flushNanos += System.nanoTime() - start;
+    }
+
+    // Merging entries of the tree with the memtable into sorted arrays, buffered entries go after equal keys of the tree
+    @SuppressWarnings("unchecked")
+    private void rebuild(int total) {
+        ArrayList<K> treeKeys = new ArrayList<>(tree.size());
+        ArrayList<V> treeValues = new ArrayList<>(tree.size());
+        tree.forEach((key, value) -> {
+            treeKeys.add(key);
+            treeValues.add(value);
+        });
+
+        K[] keys = (K[]) new Comparable<?>[total];
+        V[] values = (V[]) new Object[total];
+        int size = 0, i = 0;
+        for (Map.Entry<K, ArrayList<V>> entry : memtable.entrySet()) {
+            for (; i < treeKeys.size() && treeKeys.get(i).compareTo(entry.getKey()) <= 0; i++) {
+                keys[size] = treeKeys.get(i);
+                values[size++] = treeValues.get(i);
+            }
+            for (V value : entry.getValue()) {
+                keys[size] = entry.getKey();
+                values[size++] = value;
+            }
+        }
+        for (; i < treeKeys.size(); i++) {
+            keys[size] = treeKeys.get(i);
+            values[size++] = treeValues.get(i);
+        }
+        tree = RangeQueries.bulkLoad(degree, monoid, keys, values, FILL_FACTOR);
+    }
+
+    public V lookup(K key) {
+        V value = tree.lookup(key);
+        if (value != null) return value;
+        ArrayList<V> values = memtable.get(key);
+        return values == null ? null : values.get(0);
+    }
+
+    // Values of the tree and of the memtable in key order, buffered values go after equal keys of the tree
+    public List<V> lookupRange(K from, K to) {
+        ArrayList<V> result = new ArrayList<>();
+        if (less(to, from)) return result;
+        MergingVisitor visitor = new MergingVisitor(memtable.subMap(from, true, to, true).entrySet().iterator(), result);
+        tree.forEachInRange(from, to, visitor);
+        visitor.drainBefore(null);
+        return result;
+    }
+
+    // Adding buffered values in between values of the tree, which come in key order
+    private class MergingVisitor implements BiConsumer<K, V> {
+        private final Iterator<Map.Entry<K, ArrayList<V>>> buffer;
+        private final ArrayList<V> result;
+        private Map.Entry<K, ArrayList<V>> next;
+
+        private MergingVisitor(Iterator<Map.Entry<K, ArrayList<V>>> buffer, ArrayList<V> result) {
+            this.buffer = buffer;
+            this.result = result;
+            this.next = buffer.hasNext() ? buffer.next() : null;
+        }
+
+        public void accept(K key, V value) {
+            drainBefore(key);
+            result.add(value);
+        }
+
+        // Adding buffered values of keys less than "key", or all of them if "key" is null
+        private void drainBefore(K key) {
+            while (next != null && (key == null || less(next.getKey(), key))) {
+                result.addAll(next.getValue());
+                next = buffer.hasNext() ? buffer.next() : null;
+            }
+        }
+    }
+
+    /*
+     A commutative monoid is combined from the aggregate of the tree and a fold over the memtable,
+     so augmented trees keep their O(log n) range aggregates. Otherwise values are folded in key order
+     */
+    public <A> A aggregateRange(K from, K to, Monoid<V, A> monoid) {
+        if (!monoid.commutative()) return RangeMap.super.aggregateRange(from, to, monoid);
+        A result = tree.aggregateRange(from, to, monoid);
+        if (less(to, from)) return result;
+        for (ArrayList<V> values : memtable.subMap(from, true, to, true).values()) {
+            for (V value : values) {
+                result = monoid.combine(result, monoid.lift(value));
+            }
+        }
+        return result;
+    }
+
+    public int size() {
+        return tree.size() + buffered;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(K k) {
+        return lookup(k) != null;
+    }
+
+    public long flushes() {
+        return flushes;
+    }
+
+    // Total time spent in flushes
+    public long flushNanos() {
+        return flushNanos;
+    }
+
+    // Entries written into the tree by flushes per entry that went through the memtable
+    public double writeAmplification() {
+        return entriesFlushed == 0 ? 0 : (double) entriesWritten / entriesFlushed;
+    }
+
+    private boolean less(K key1, K key2) {
+        return key1.compareTo(key2) < 0;
+    }
+}
+
+/*
+ Bounded LRU cache of range query results in front of any RangeMap, for statements over the same ranges
+ asked again and again. A cached range stays valid until a write touches a key inside it, and such ranges
+ are found with an interval index over the cached ones instead of dropping the whole cache on every write
+ */
+class CachedRangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
+    private final RangeMap<K, V> map;
+    // Values are lists returned by lookupRange or aggregates returned by aggregateRange
+    private final LinkedHashMap<Query<K>, Object> cache;
+    private final IntervalIndex<K> index = new IntervalIndex<>();
+    private long nextId = 0;
+
+    private long hits = 0;
+    private long misses = 0;
+    private long invalidations = 0;
+
+    /*
+     Cached query, "monoid" is null for lookupRange. Queries are equal if they ask the same thing,
+     "id" only orders equal ranges of different queries inside the interval index
+     */
+    private static class Query<K> {
+        final K from;
+        final K to;
+        final Object monoid;
+        final long id;
+
+        private Query(K from, K to, Object monoid, long id) {
+            this.from = from;
+            this.to = to;
+            this.monoid = monoid;
+            this.id = id;
+        }
+
+        public boolean equals(Object o) {
+            if (!(o instanceof Query)) return false;
+            Query<?> other = (Query<?>) o;
+            return from.equals(other.from) && to.equals(other.to) && monoid == other.monoid;
+        }
+
+        public int hashCode() {
+            return (from.hashCode() * 31 + to.hashCode()) * 31 + System.identityHashCode(monoid);
+        }
+    }
+
+    public CachedRangeQueries(RangeMap<K, V> map, int capacity) {
+        if (capacity < 1) throw new IllegalArgumentException("Cache capacity should be positive");
+        this.map = map;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Query<K>, Object> eldest) {
+                if (size() <= capacity) return false;
+                index.remove(eldest.getKey());
+                return true;
+            }
+        };
+    }
+
+    public void add(K key, V value) {
+        invalidate(key);
+        map.add(key, value);
+    }
+
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        invalidate(key);
+        map.merge(key, value, remapping);
+    }
+
+    // Dropping every cached range that contains "key"
+    private void invalidate(K key) {
+        ArrayList<Query<K>> stale = new ArrayList<>();
+        index.stab(key, stale);
+        for (Query<K> query : stale) {
+            cache.remove(query);
+            index.remove(query);
+        }
+        invalidations += stale.size();
+    }
+
+    // The returned list is shared with the cache, so it cannot be modified
+    @SuppressWarnings("unchecked")
+    public List<V> lookupRange(K from, K to) {
+        Object cached = cache.get(new Query<>(from, to, null, 0));
+        if (cached != null) {
+            hits++;
+            return (List<V>) cached;
+        }
+        misses++;
+        List<V> values = map.lookupRange(from, to);
+        List<V> result = values == null ? Collections.emptyList() : Collections.unmodifiableList(values);
+        remember(from, to, null, result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <A> A aggregateRange(K from, K to, Monoid<V, A> monoid) {
+        Query<K> probe = new Query<>(from, to, monoid, 0);
+        if (cache.containsKey(probe)) {
+            hits++;
+            return (A) cache.get(probe);
+        }
+        misses++;
+        A result = map.aggregateRange(from, to, monoid);
+        remember(from, to, monoid, result);
+        return result;
+    }
+
+    // Ranges with "to" less than "from" contain no keys, they are cheap to answer and are never invalidated
+    private void remember(K from, K to, Object monoid, Object result) {
+        if (to.compareTo(from) < 0) return;
+        Query<K> query = new Query<>(from, to, monoid, nextId++);
+        index.insert(query);
+        cache.put(query, result);
+    }
+
+    public V lookup(K key) {
+        return map.lookup(key);
+    }
+
+    public int size() {
+        return map.size();
+    }
+
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    public boolean contains(K k) {
+        return map.contains(k);
+    }
+
+    public long hits() {
+        return hits;
+    }
+
+    public long misses() {
+        return misses;
+    }
+
+    // Number of cached ranges dropped because a write touched them
+    public long invalidations() {
+        return invalidations;
+    }
+
+    /*
+     Treap of cached ranges ordered by "from", where every node keeps the largest "to" of its subtree.
+     All ranges containing a key are found in O(log n + k): a subtree is skipped if its largest "to"
+     is less than the key, and right subtrees are skipped once "from" exceeds the key
+     */
+    private static class IntervalIndex<K extends Comparable<K>> {
+        private Node<K> root;
+
+        private static class Node<K> {
+            final Query<K> query;
+            final int priority = ThreadLocalRandom.current().nextInt();
+            Node<K> left;
+            Node<K> right;
+            K maxTo;
+
+            private Node(Query<K> query) {
+                this.query = query;
+                this.maxTo = query.to;
+            }
+        }
+
+        void insert(Query<K> query) {
+            root = insert(root, new Node<>(query));
+        }
+
+        void remove(Query<K> query) {
+            root = remove(root, query);
+        }
+
+        void stab(K key, List<Query<K>> result) {
+            stab(root, key, result);
+        }
+
+        private Node<K> insert(Node<K> x, Node<K> node) {
+            if (x == null) return node;
+            if (compare(node.query, x.query) < 0) {
+                x.left = insert(x.left, node);
+                if (x.left.priority > x.priority) x = rotateRight(x);
+            } else {
+                x.right = insert(x.right, node);
+                if (x.right.priority > x.priority) x = rotateLeft(x);
+            }
+            update(x);
+            return x;
+        }
+
+        private Node<K> remove(Node<K> x, Query<K> query) {
+            if (x == null) return null;
+            int c = compare(query, x.query);
+            if (c == 0) return merge(x.left, x.right);
+            if (c < 0) x.left = remove(x.left, query);
+            else x.right = remove(x.right, query);
+            update(x);
+            return x;
+        }
+
+        // Joining two treaps where all ranges of "a" go before all ranges of "b"
+        private Node<K> merge(Node<K> a, Node<K> b) {
+            if (a == null) return b;
+            if (b == null) return a;
+            if (a.priority > b.priority) {
+                a.right = merge(a.right, b);
+                update(a);
+                return a;
+            }
+            b.left = merge(a, b.left);
+            update(b);
+            return b;
+        }
+
+        private void stab(Node<K> x, K key, List<Query<K>> result) {
+            if (x == null || x.maxTo.compareTo(key) < 0) return;
+            stab(x.left, key, result);
+            if (key.compareTo(x.query.from) < 0) return;
+            if (key.compareTo(x.query.to) <= 0) result.add(x.query);
+            stab(x.right, key, result);
+        }
+
+        private Node<K> rotateRight(Node<K> x) {
+            Node<K> l = x.left;
+            x.left = l.right;
+            l.right = x;
+            update(x);
+            return l;
+        }
+
+        private Node<K> rotateLeft(Node<K> x) {
+            Node<K> r = x.right;
+            x.right = r.left;
+            r.left = x;
+            update(x);
+            return r;
+        }
+
+        private void update(Node<K> x) {
+            K maxTo = x.query.to;
+            if (x.left != null && x.left.maxTo.compareTo(maxTo) > 0) maxTo = x.left.maxTo;
+            if (x.right != null && x.right.maxTo.compareTo(maxTo) > 0) maxTo = x.right.maxTo;
+            x.maxTo = maxTo;
+        }
+
+        private int compare(Query<K> a, Query<K> b) {
+            int c = a.from.compareTo(b.from);
+            if (c == 0) c = a.to.compareTo(b.to);
+            return c != 0 ? c : Long.compare(a.id, b.id);
+        }
+    }
 }
 
+/*
+ RangeQueries specialized for int keys, such as dates encoded as yyyyMMdd or epoch days.
+ Every node keeps its keys in a primitive array and its values in a parallel array instead of Entry objects,
+ and positions inside a node are found by binary search, so a level costs O(log degree) comparisons
+ of ints that lie next to each other in memory
+ */
+class IntRangeQueries<V> implements RangeMap<Integer, V> {
+
+    private final int degree;
+    private Node<V> root;
+    private int numberOfKeys = 0;
+    // Monoid whose aggregates are kept in every node, or null if the tree is not augmented
+    private final Monoid<V, Object> monoid;
+
+    private static class Node<V> {
+        int n;
+        boolean leaf = true;
+        Node<V>[] child;
+        final int[] keys;
+        final V[] values;
+        Object aggregate;    // aggregate of all values in the subtree, in key order
+
+        @SuppressWarnings("unchecked")
+        private Node(int deg) {
+            this.keys = new int[2 * deg - 1];
+            this.values = (V[]) new Object[2 * deg - 1];
+            this.child = (Node<V>[]) new Node<?>[2 * deg];
+        }
+    }
+
+    public IntRangeQueries(int t) {
+        this(t, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    public IntRangeQueries(int t, Monoid<V, ?> monoid) {
+        root = new Node<>(t);
+        degree = t;
+        this.monoid = (Monoid<V, Object>) monoid;
+        if (monoid != null) root.aggregate = monoid.identity();
+    }
+
+    // Searching for a value by key
+    private V search(Node<V> x, int key) {
+        int i = lowerBound(x, key);
+
+        // Returning the value if we have discovered the key
+        if (i < x.n && x.keys[i] == key) return x.values[i];
+
+        // If "x" is not a leaf, we should search the appropriate subtree of "x"
+        if (!x.leaf) return search(x.child[i], key);
+        return null;
+    }
+
+    // Splitting a full child of "x", the same way as in RangeQueries
+    private void split(Node<V> x, int position) {
+        Node<V> newNode = new Node<>(degree);
+        Node<V> oldNode = x.child[position];
+        newNode.leaf = oldNode.leaf;
+        newNode.n = degree - 1;
+
+        // "newNode" takes the largest "degree - 1" keys and corresponding "degree" children of "oldNode"
+        System.arraycopy(oldNode.keys, degree, newNode.keys, 0, degree - 1);
+        System.arraycopy(oldNode.values, degree, newNode.values, 0, degree - 1);
+        if (!oldNode.leaf) {
+            System.arraycopy(oldNode.child, degree, newNode.child, 0, degree);
+        }
+        oldNode.n = degree - 1;
+
+        // Moving the median key from "oldNode" up to "x"
+        System.arraycopy(x.child, position + 1, x.child, position + 2, x.n - position);
+        x.child[position + 1] = newNode;
+        System.arraycopy(x.keys, position, x.keys, position + 1, x.n - position);
+        System.arraycopy(x.values, position, x.values, position + 1, x.n - position);
+        x.keys[position] = oldNode.keys[degree - 1];
+        x.values[position] = oldNode.values[degree - 1];
+        x.n = x.n + 1;
+
+        // Dropping references to values which now belong to other nodes
+        Arrays.fill(oldNode.values, degree - 1, 2 * degree - 1, null);
+        recomputeAggregate(oldNode);
+        recomputeAggregate(newNode);
+    }
+
+    public void add(Integer key, V value) {
+        addInt(key, value);
+    }
+
+    // Inserting a key-value entry in tree, named apart from add to avoid ambiguity when values are boxed too
+    public void addInt(int key, V value) {
+        numberOfKeys++;
+        Node<V> r = root;
+        if (r.n == 2 * degree - 1) {
+            Node<V> s = new Node<>(degree);
+            root = s;
+            s.leaf = false;
+            s.child[0] = r;
+            split(s, 0);
+            insertNonFull(s, key, value);
+        } else {
+            insertNonFull(r, key, value);
+        }
+    }
+
+    public void merge(Integer key, V value, BinaryOperator<V> remapping) {
+        mergeInt(key, value, remapping);
+    }
+
+    // Combining "value" into the value of an existing "key", or inserting it, as in RangeQueries
+    public void mergeInt(int key, V value, BinaryOperator<V> remapping) {
+        if (!privateMerge(root, key, value, remapping)) addInt(key, value);
+    }
+
+    private boolean privateMerge(Node<V> x, int key, V value, BinaryOperator<V> remapping) {
+        int i = lowerBound(x, key);
+        if (i < x.n && x.keys[i] == key) {
+            x.values[i] = remapping.apply(x.values[i], value);
+        } else if (x.leaf || !privateMerge(x.child[i], key, value, remapping)) {
+            return false;
+        }
+        recomputeAggregate(x);
+        return true;
+    }
+
+    private void insertNonFull(Node<V> x, int key, V value) {
+        // Equal keys are inserted after the existing ones, as in RangeQueries
+        int i = upperBound(x, key);
+        if (x.leaf) {
+            System.arraycopy(x.keys, i, x.keys, i + 1, x.n - i);
+            System.arraycopy(x.values, i, x.values, i + 1, x.n - i);
+            x.keys[i] = key;
+            x.values[i] = value;
+            x.n = x.n + 1;
+        } else {
+            if (x.child[i].n == 2 * degree - 1) {
+                split(x, i);
+                if (x.keys[i] < key) i++;  // determining to which children we should descend to
+            }
+            insertNonFull(x.child[i], key, value);
+        }
+        recomputeAggregate(x);
+    }
+
+    private void recomputeAggregate(Node<V> x) {
+        if (monoid == null) return;
+        Object aggregate = monoid.identity();
+        for (int i = 0; i < x.n; i++) {
+            if (!x.leaf) aggregate = monoid.combine(aggregate, x.child[i].aggregate);
+            aggregate = monoid.combine(aggregate, monoid.lift(x.values[i]));
+        }
+        if (!x.leaf) aggregate = monoid.combine(aggregate, x.child[x.n].aggregate);
+        x.aggregate = aggregate;
+    }
+
+    public V lookup(Integer key) {
+        return lookup(key.intValue());
+    }
+
+    public V lookup(int key) {
+        return search(root, key);
+    }
+
+    public List<V> lookupRange(Integer from, Integer to) {
+        return lookupRange(from.intValue(), to.intValue());
+    }
+
+    public List<V> lookupRange(int from, int to) {
+        ArrayList<V> result = new ArrayList<>();
+        privateLookupRange(root, from, to, result);
+        return result;
+    }
+
+    // Collecting values in key order into a single list, starting at the first key not less than "from"
+    private void privateLookupRange(Node<V> x, int from, int to, ArrayList<V> result) {
+        int entry;
+        for (entry = lowerBound(x, from); entry < x.n && x.keys[entry] <= to; entry++) {
+            if (!x.leaf) privateLookupRange(x.child[entry], from, to, result);
+            result.add(x.values[entry]);
+        }
+        if (!x.leaf) privateLookupRange(x.child[entry], from, to, result);
+    }
+
+    public <A> A aggregateRange(Integer from, Integer to, Monoid<V, A> monoid) {
+        return aggregateRange(from.intValue(), to.intValue(), monoid);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <A> A aggregateRange(int from, int to, Monoid<V, A> monoid) {
+        if (monoid != this.monoid) return RangeMap.super.aggregateRange(from, to, monoid);
+        return (A) privateAggregateRange(root, from, to, false, false);
+    }
+
+    // The same traversal as in RangeQueries, children before the first key in range are skipped at once
+    private Object privateAggregateRange(Node<V> x, int from, int to, boolean aboveFrom, boolean belowTo) {
+        if (aboveFrom && belowTo) return x.aggregate;
+        Object result = monoid.identity();
+
+        for (int i = lowerBound(x, from); i <= x.n; i++) {
+            if (i > 0 && x.keys[i - 1] > to) break;
+
+            if (!x.leaf) {
+                boolean childAboveFrom = aboveFrom || (i > 0 && x.keys[i - 1] >= from);
+                boolean childBelowTo = belowTo || (i < x.n && x.keys[i] <= to);
+                result = monoid.combine(result, privateAggregateRange(x.child[i], from, to, childAboveFrom, childBelowTo));
+            }
+            if (i < x.n && x.keys[i] <= to) {
+                result = monoid.combine(result, monoid.lift(x.values[i]));
+            }
+        }
+        return result;
+    }
+
+    // Index of the first key that is not less than "key"
+    private int lowerBound(Node<V> x, int key) {
+        int low = 0, high = x.n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (x.keys[middle] < key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // Index of the first key that is greater than "key"
+    private int upperBound(Node<V> x, int key) {
+        int low = 0, high = x.n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (x.keys[middle] <= key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    public int size() {
+        return numberOfKeys;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(Integer k) {
+        return lookup(k) != null;
+    }
+}
+
+/*
+ B+-tree variant of RangeQueries: all entries are stored in leaves, which are linked by sibling pointers,
+ and inner nodes keep only separator keys. A range is found with one descent to its first key,
+ after which leaves are walked one by one without allocating anything per node
+ */
+class BPlusRangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
+
+    private final int degree;
+    private Node<K, V> root;
+    private int numberOfKeys = 0;
+
+    /*
+     Keys of child "i" lie between separators "i - 1" and "i" inclusive,
+     since equal keys may end up on both sides of a split
+     */
+    private static class Node<K, V> {
+        int n;
+        final boolean leaf;
+        K[] keys;
+        V[] values;           // only in leaves
+        Node<K, V>[] child;   // only in inner nodes
+        Node<K, V> next;      // right sibling, only in leaves
+
+        @SuppressWarnings("unchecked")
+        private Node(int deg, boolean leaf) {
+            this.leaf = leaf;
+            this.keys = (K[]) new Comparable<?>[2 * deg - 1];
+            if (leaf) {
+                this.values = (V[]) new Object[2 * deg - 1];
+            } else {
+                this.child = (Node<K, V>[]) new Node<?, ?>[2 * deg];
+            }
+        }
+    }
+
+    public BPlusRangeQueries(int t) {
+        if (t < 2) throw new IllegalArgumentException("Degree should be at least 2");
+        degree = t;
+        root = new Node<>(t, true);
+    }
+
+    // Inserting a key-value entry, full nodes are split on the way down as in RangeQueries
+    public void add(K key, V value) {
+        numberOfKeys++;
+        if (root.n == 2 * degree - 1) {
+            Node<K, V> s = new Node<>(degree, false);
+            s.child[0] = root;
+            root = s;
+            split(s, 0);
+        }
+
+        Node<K, V> x = root;
+        while (!x.leaf) {
+            int i = upperBound(x, key);
+            if (x.child[i].n == 2 * degree - 1) {
+                split(x, i);
+                if (!less(key, x.keys[i])) i++;
+            }
+            x = x.child[i];
+        }
+
+        // Equal keys are kept in insertion order
+        int i = upperBound(x, key);
+        System.arraycopy(x.keys, i, x.keys, i + 1, x.n - i);
+        System.arraycopy(x.values, i, x.values, i + 1, x.n - i);
+        x.keys[i] = key;
+        x.values[i] = value;
+        x.n++;
+    }
+
+    // Combining "value" into the value of an existing "key", or inserting it, as in RangeQueries
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        Node<K, V> leaf = findLeaf(key);
+        int i = lowerBound(leaf, key);
+        // The first entry with "key" may start the next leaf, when "key" is equal to the separator
+        if (i == leaf.n && leaf.next != null) {
+            leaf = leaf.next;
+            i = 0;
+        }
+
+        if (i < leaf.n && !less(key, leaf.keys[i])) {
+            leaf.values[i] = remapping.apply(leaf.values[i], value);
+        } else {
+            add(key, value);
+        }
+    }
+
+    /*
+     Splitting the full child at "position". A leaf keeps "degree" entries and a copy of the first key
+     of the new leaf becomes the separator, an inner node moves its median key up as in a B-tree
+     */
+    private void split(Node<K, V> x, int position) {
+        Node<K, V> oldNode = x.child[position];
+        Node<K, V> newNode = new Node<>(degree, oldNode.leaf);
+        newNode.n = degree - 1;
+        K separator;
+
+        if (oldNode.leaf) {
+            System.arraycopy(oldNode.keys, degree, newNode.keys, 0, degree - 1);
+            System.arraycopy(oldNode.values, degree, newNode.values, 0, degree - 1);
+            Arrays.fill(oldNode.values, degree, 2 * degree - 1, null);
+            oldNode.n = degree;
+            newNode.next = oldNode.next;
+            oldNode.next = newNode;
+            separator = newNode.keys[0];
+        } else {
+            System.arraycopy(oldNode.keys, degree, newNode.keys, 0, degree - 1);
+            System.arraycopy(oldNode.child, degree, newNode.child, 0, degree);
+            Arrays.fill(oldNode.child, degree, 2 * degree, null);
+            separator = oldNode.keys[degree - 1];
+            oldNode.n = degree - 1;
+        }
+        Arrays.fill(oldNode.keys, oldNode.n, 2 * degree - 1, null);
+
+        System.arraycopy(x.child, position + 1, x.child, position + 2, x.n - position);
+        System.arraycopy(x.keys, position, x.keys, position + 1, x.n - position);
+        x.child[position + 1] = newNode;
+        x.keys[position] = separator;
+        x.n++;
+    }
+
+    public V lookup(K key) {
+        Iterator<V> values = rangeIterator(key, key);
+        return values.hasNext() ? values.next() : null;
+    }
+
+    public List<V> lookupRange(K from, K to) {
+        ArrayList<V> result = new ArrayList<>();
+        forEachInRange(from, to, (key, value) -> result.add(value));
+        return result;
+    }
+
+    // Lazy iterator over values of keys in [from, to] in key order
+    public Iterator<V> rangeIterator(K from, K to) {
+        return new RangeIterator(from, to);
+    }
+
+    // Calling "visitor" for every entry with the key in [from, to] in key order
+    public void forEachInRange(K from, K to, BiConsumer<? super K, ? super V> visitor) {
+        Node<K, V> leaf = findLeaf(from);
+        for (int i = lowerBound(leaf, from); leaf != null; leaf = leaf.next, i = 0) {
+            for (; i < leaf.n; i++) {
+                if (less(to, leaf.keys[i])) return;
+                visitor.accept(leaf.keys[i], leaf.values[i]);
+            }
+        }
+    }
+
+    public <A> A aggregateRange(K from, K to, Monoid<V, A> monoid) {
+        A result = monoid.identity();
+        for (Iterator<V> values = rangeIterator(from, to); values.hasNext(); ) {
+            result = monoid.combine(result, monoid.lift(values.next()));
+        }
+        return result;
+    }
+
+    private class RangeIterator implements Iterator<V> {
+        private final K to;
+        private Node<K, V> leaf;
+        private int index;
+
+        private RangeIterator(K from, K to) {
+            this.to = to;
+            this.leaf = findLeaf(from);
+            this.index = lowerBound(leaf, from);
+        }
+
+        public boolean hasNext() {
+            // Moving to the next leaf once the current one is exhausted
+            while (leaf != null && index == leaf.n) {
+                leaf = leaf.next;
+                index = 0;
+            }
+            return leaf != null && !less(to, leaf.keys[index]);
+        }
+
+        public V next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            return leaf.values[index++];
+        }
+    }
+
+    // Descending to the leftmost leaf which may contain "key"
+    private Node<K, V> findLeaf(K key) {
+        Node<K, V> x = root;
+        while (!x.leaf) {
+            x = x.child[lowerBound(x, key)];
+        }
+        return x;
+    }
+
+    // Index of the first key that is not less than "key"
+    private int lowerBound(Node<K, V> x, K key) {
+        int low = 0, high = x.n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (less(x.keys[middle], key)) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // Index of the first key that is greater than "key"
+    private int upperBound(Node<K, V> x, K key) {
+        int low = 0, high = x.n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (less(key, x.keys[middle])) high = middle;
+            else low = middle + 1;
+        }
+        return low;
+    }
+
+    public int size() {
+        return numberOfKeys;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private boolean less(K key1, K key2) {
+        return key1.compareTo(key2) < 0;
+    }
+
+    public boolean contains(K k) {
+        return lookup(k) != null;
+    }
+}
+
+/*
+ Thread-safe RangeQueries with optimistic lock coupling. Every node has a version counter, which is odd
+ while a writer holds the node and moves forward on every unlock. Readers never take locks: they remember
+ versions of the nodes they read and check them again, restarting if any of them has changed meanwhile.
+ Writers descend the same way and lock only the node they change, or a full node and its parent for a split
+ */
+class ConcurrentRangeQueries<K extends Comparable<K>, V> implements RangeMap<K, V> {
+    // Returned by an optimistic attempt that has to be restarted
+    private static final Object RESTART = new Object();
+    private static final VarHandle VERSION;
+
+    static {
+        try {
+            VERSION = MethodHandles.lookup().findVarHandle(Node.class, "version", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final int degree;
+    // Sentinel above the root with no keys, so the root is read and replaced under a version like any other child
+    private final Node<K, V> head;
+    private final AtomicInteger numberOfKeys = new AtomicInteger();
+
+    /*
+     Fields other than the version are read without synchronization, so a reader may see them
+     in the middle of a change. Such reads are used only after the version is validated
+     */
+    private static class Node<K, V> {
+        volatile long version;
+        int n;
+        final boolean leaf;
+        final K[] keys;
+        final V[] values;
+        final Node<K, V>[] child;
+
+        @SuppressWarnings("unchecked")
+        private Node(int deg, boolean leaf) {
+            this.leaf = leaf;
+            this.keys = (K[]) new Comparable<?>[2 * deg - 1];
+            this.values = (V[]) new Object[2 * deg - 1];
+            this.child = leaf ? null : (Node<K, V>[]) new Node<?, ?>[2 * deg];
+        }
+    }
+
+    // Values of one lookupRange attempt together with the nodes it has read and their versions
+    private static class Scan<K, V> {
+        final ArrayList<V> values = new ArrayList<>();
+        @SuppressWarnings("unchecked")
+        Node<K, V>[] nodes = (Node<K, V>[]) new Node<?, ?>[16];
+        long[] versions = new long[16];
+        int visited;
+
+        void visit(Node<K, V> x, long version) {
+            if (visited == nodes.length) {
+                nodes = Arrays.copyOf(nodes, visited * 2);
+                versions = Arrays.copyOf(versions, visited * 2);
+            }
+            nodes[visited] = x;
+            versions[visited++] = version;
+        }
+
+        // No node of the scan has changed since it was read, so the values form the range at this moment
+        boolean validate() {
+            VarHandle.acquireFence();
+            for (int i = 0; i < visited; i++) {
+                if (nodes[i].version != versions[i]) return false;
+            }
+            return true;
+        }
+
+        void clear() {
+            values.clear();
+            Arrays.fill(nodes, 0, visited, null);
+            visited = 0;
+        }
+    }
+
+    public ConcurrentRangeQueries(int t) {
+        if (t < 2) throw new IllegalArgumentException("Degree should be at least 2");
+        degree = t;
+        head = new Node<>(t, false);
+        head.child[0] = new Node<>(t, true);
+    }
+
+    // Waiting while "x" is locked by a writer and returning its version
+    private static long readLock(Node<?, ?> x) {
+        long version;
+        while (((version = x.version) & 1) != 0) {
+            Thread.onSpinWait();
+        }
+        return version;
+    }
+
+    // Whether everything read from "x" since its version was taken is consistent
+    private static boolean validate(Node<?, ?> x, long version) {
+        VarHandle.acquireFence();
+        return x.version == version;
+    }
+
+    // Locking "x" only if it has not changed since "version" was read
+    private static boolean upgrade(Node<?, ?> x, long version) {
+        return VERSION.compareAndSet(x, version, version + 1);
+    }
+
+    private static void writeUnlock(Node<?, ?> x) {
+        x.version = x.version + 1;
+    }
+
+    public void add(K key, V value) {
+        while (!tryInsert(key, value, null)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    // Combining "value" into the value of an existing "key", or inserting it, as in RangeQueries
+    public void merge(K key, V value, BinaryOperator<V> remapping) {
+        while (!tryInsert(key, value, remapping)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /*
+     One optimistic descent from the head. A full node is split before descending through it,
+     which needs locks on the node and on its parent, known to be non-full by the same rule.
+     After a split the descent starts over, since the tree it has read is not there anymore
+     */
+    private boolean tryInsert(K key, V value, BinaryOperator<V> remapping) {
+        Node<K, V> parent = head;
+        long parentVersion = readLock(parent);
+        Node<K, V> x = parent.child[0];
+        int position = 0;
+        if (!validate(parent, parentVersion)) return false;
+        long version = readLock(x);
+        if (!validate(parent, parentVersion)) return false;
+
+        while (true) {
+            int n = x.n;
+            if (n == 2 * degree - 1) {
+                if (!upgrade(parent, parentVersion)) return false;
+                if (!upgrade(x, version)) {
+                    writeUnlock(parent);
+                    return false;
+                }
+                if (parent == head) {
+                    Node<K, V> s = new Node<>(degree, false);
+                    s.child[0] = x;
+                    split(s, 0);
+                    head.child[0] = s;
+                } else {
+                    split(parent, position);
+                }
+                writeUnlock(x);
+                writeUnlock(parent);
+                return false;
+            }
+
+            if (remapping != null) {
+                int i = lowerBound(x, key, n);
+                if (i < 0) return false;
+                if (i < n && equal(x.keys[i], key)) {
+                    if (!upgrade(x, version)) return false;
+                    x.values[i] = remapping.apply(x.values[i], value);
+                    writeUnlock(x);
+                    return true;
+                }
+            }
+
+            int i = upperBound(x, key, n);
+            if (i < 0) return false;
+            if (x.leaf) {
+                if (!upgrade(x, version)) return false;
+                // The node has not changed since it was read, so "n" and "i" are still valid
+                System.arraycopy(x.keys, i, x.keys, i + 1, n - i);
+                System.arraycopy(x.values, i, x.values, i + 1, n - i);
+                x.keys[i] = key;
+                x.values[i] = value;
+                x.n = n + 1;
+                writeUnlock(x);
+                numberOfKeys.incrementAndGet();
+                return true;
+            }
+
+            Node<K, V> next = x.child[i];
+            if (next == null || !validate(x, version)) return false;
+            long nextVersion = readLock(next);
+            if (!validate(x, version)) return false;
+            parent = x;
+            parentVersion = version;
+            position = i;
+            x = next;
+            version = nextVersion;
+        }
+    }
+
+    // Splitting the full child at "position" as in RangeQueries, both "x" and the child are locked
+    private void split(Node<K, V> x, int position) {
+        Node<K, V> oldNode = x.child[position];
+        Node<K, V> newNode = new Node<>(degree, oldNode.leaf);
+        System.arraycopy(oldNode.keys, degree, newNode.keys, 0, degree - 1);
+        System.arraycopy(oldNode.values, degree, newNode.values, 0, degree - 1);
+        if (!oldNode.leaf) System.arraycopy(oldNode.child, degree, newNode.child, 0, degree);
+        newNode.n = degree - 1;
+        oldNode.n = degree - 1;
+
+        System.arraycopy(x.child, position + 1, x.child, position + 2, x.n - position);
+        System.arraycopy(x.keys, position, x.keys, position + 1, x.n - position);
+        System.arraycopy(x.values, position, x.values, position + 1, x.n - position);
+        x.child[position + 1] = newNode;
+        x.keys[position] = oldNode.keys[degree - 1];
+        x.values[position] = oldNode.values[degree - 1];
+        x.n = x.n + 1;
+    }
+
+    @SuppressWarnings("unchecked")
+    public V lookup(K key) {
+        Object result;
+        while ((result = tryLookup(key)) == RESTART) {
+            Thread.onSpinWait();
+        }
+        return (V) result;
+    }
+
+    // Descending with lock coupling: the version of a child is taken before its parent is validated
+    private Object tryLookup(K key) {
+        Node<K, V> x = head;
+        long version = readLock(x);
+        while (true) {
+            int n = x.n;
+            int i = lowerBound(x, key, n);
+            if (i < 0) return RESTART;
+            if (i < n && equal(x.keys[i], key)) {
+                V value = x.values[i];
+                return validate(x, version) ? value : RESTART;
+            }
+            if (x.leaf) return validate(x, version) ? null : RESTART;
+
+            Node<K, V> next = x.child[i];
+            if (next == null || !validate(x, version)) return RESTART;
+            long nextVersion = readLock(next);
+            if (!validate(x, version)) return RESTART;
+            x = next;
+            version = nextVersion;
+        }
+    }
+
+    /*
+     All nodes read by the scan are validated again at its end, and any insertion into the range
+     changes at least one of them, so a returned list is the whole range at the moment of that check
+     */
+    public List<V> lookupRange(K from, K to) {
+        Scan<K, V> scan = new Scan<>();
+        while (!privateLookupRange(head, readLock(head), from, to, scan) || !scan.validate()) {
+            scan.clear();
+            Thread.onSpinWait();
+        }
+        return scan.values;
+    }
+
+    private boolean privateLookupRange(Node<K, V> x, long version, K from, K to, Scan<K, V> scan) {
+        scan.visit(x, version);
+        int n = x.n;
+        int entry = lowerBound(x, from, n);
+        if (entry < 0) return false;
+
+        for (; ; entry++) {
+            if (!x.leaf) {
+                Node<K, V> next = x.child[entry];
+                if (next == null) return false;
+                long nextVersion = readLock(next);
+                if (!validate(x, version)) return false;
+                if (!privateLookupRange(next, nextVersion, from, to, scan)) return false;
+            }
+            if (entry == n) break;
+            K key = x.keys[entry];
+            if (key == null) return false;
+            if (less(to, key)) break;
+            scan.values.add(x.values[entry]);
+        }
+        return true;
+    }
+
+    // Index of the first key that is not less than "key", or -1 if keys were caught in the middle of a change
+    private int lowerBound(Node<K, V> x, K key, int n) {
+        int low = 0, high = n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            K middleKey = x.keys[middle];
+            if (middleKey == null) return -1;
+            if (less(middleKey, key)) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // Index of the first key that is greater than "key", or -1 as in lowerBound
+    private int upperBound(Node<K, V> x, K key, int n) {
+        int low = 0, high = n;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            K middleKey = x.keys[middle];
+            if (middleKey == null) return -1;
+            if (less(key, middleKey)) high = middle;
+            else low = middle + 1;
+        }
+        return low;
+    }
+
+    public int size() {
+        return numberOfKeys.get();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    private boolean equal(K key1, K key2) {
+        return key1 != null && key1.compareTo(key2) == 0;
+    }
+
+    private boolean less(K key1, K key2) {
+        return key1.compareTo(key2) < 0;
+    }
+
+    public boolean contains(K k) {
+        return lookup(k) != null;
+    }
+}
+
+/*
+ Persistent B-tree with int keys and int values, such as dates and amounts of the bank statement task.
+ Every node is a fixed-size page of a file, sized by the degree, and page 0 is a memory-mapped header
+ with the root page, the number of pages and the number of entries, so reopening a file reads only the header.
+ Other pages are read into a cache of the "cachedPages" most recently used pages, and changed pages are written back
+ when they are evicted or on flush, so a history much larger than the heap is queried by touching only the pages
+ on the searched paths. Pages are not mapped, because Java 17 cannot unmap a mapping before the garbage collector
+ collects it, so memory held by the tree is bounded by (cachedPages + 1) * pageSize bytes, about DEFAULT_CACHE_SIZE
+ by default, while the rest of the file stays in the OS page cache, which is not a part of the resident set
+ */
+class PagedRangeQueries implements RangeMap<Integer, Integer>, Closeable {
+    private static final int MAGIC = 0x52514231;
+    private static final int DEFAULT_CACHE_SIZE = 1 << 22;
+    private static final int MIN_CACHED_PAGES = 16;
+
+    // Header layout
+    private static final int MAGIC_OFFSET = 0;
+    private static final int DEGREE_OFFSET = 4;
+    private static final int ROOT_OFFSET = 8;
+    private static final int PAGES_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+
+    // Node layout: number of keys, leaf flag, then arrays of keys, values and child page numbers
+    private static final int N_OFFSET = 0;
+    private static final int LEAF_OFFSET = 4;
+    private static final int KEYS_OFFSET = 8;
+
+    private final int degree;
+    private final int pageSize;
+    private final int valuesOffset;
+    private final int childrenOffset;
+    private final FileChannel channel;
+    // Header page stays mapped all the time, since it changes with every insertion
+    private final MappedByteBuffer header;
+    private final LinkedHashMap<Integer, Page> cache;
+    // Consecutive reads and writes mostly go to the same page, so the last one is kept apart from the cache lookup
+    private int lastIndex = -1;
+    private Page lastPage;
+    private int root;
+    private int pages;
+    private int numberOfKeys;
+
+    // Cached page with a flag whether it has to be written back
+    private static class Page {
+        final ByteBuffer buffer;
+        boolean dirty;
+
+        Page(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+    }
+
+    public PagedRangeQueries(Path file, int t) throws IOException {
+        this(file, t, Math.max(MIN_CACHED_PAGES, DEFAULT_CACHE_SIZE / pageSize(Math.max(t, 2))));
+    }
+
+    // Opening the tree stored in "file", or creating an empty one if the file is empty or does not exist
+    public PagedRangeQueries(Path file, int t, int cachedPages) throws IOException {
+        if (t < 2) throw new IllegalArgumentException("Degree should be at least 2");
+        if (cachedPages < 1) throw new IllegalArgumentException("At least one page should be cached");
+        degree = t;
+        valuesOffset = KEYS_OFFSET + 4 * (2 * t - 1);
+        childrenOffset = valuesOffset + 4 * (2 * t - 1);
+        pageSize = pageSize(t);
+        channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        boolean created = channel.size() == 0;
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, pageSize);
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                if (size() <= cachedPages) return false;
+                if (eldest.getValue().dirty) store(eldest.getKey(), eldest.getValue());
+                if (eldest.getKey() == lastIndex) {
+                    lastIndex = -1;
+                    lastPage = null;
+                }
+                return true;
+            }
+        };
+
+        if (created) {
+            pages = 1;
+            setHeader(MAGIC_OFFSET, MAGIC);
+            setHeader(DEGREE_OFFSET, degree);
+            setHeader(PAGES_OFFSET, pages);
+            root = allocate(true);
+            setHeader(ROOT_OFFSET, root);
+            setHeader(SIZE_OFFSET, 0);
+        } else {
+            if (header(MAGIC_OFFSET) != MAGIC) throw new IllegalArgumentException("Not a range map file: " + file);
+            if (header(DEGREE_OFFSET) != degree) {
+                throw new IllegalArgumentException("File was created with degree " + header(DEGREE_OFFSET));
+            }
+            root = header(ROOT_OFFSET);
+            pages = header(PAGES_OFFSET);
+            numberOfKeys = header(SIZE_OFFSET);
+        }
+    }
+
+    public void add(Integer key, Integer value) {
+        addInt(key, value);
+    }
+
+    // Inserting a key-value entry, full pages are split on the way down as in RangeQueries
+    public void addInt(int key, int value) {
+        setHeader(SIZE_OFFSET, ++numberOfKeys);
+        if (n(root) == 2 * degree - 1) {
+            int s = allocate(false);
+            setChild(s, 0, root);
+            root = s;
+            setHeader(ROOT_OFFSET, root);
+            split(s, 0);
+        }
+
+        int x = root;
+        while (!leaf(x)) {
+            int i = upperBound(x, key);
+            if (n(child(x, i)) == 2 * degree - 1) {
+                split(x, i);
+                if (key(x, i) < key) i++;  // determining to which children we should descend to, as in RangeQueries
+            }
+            x = child(x, i);
+        }
+
+        int i = upperBound(x, key);
+        for (int j = n(x); j > i; j--) {
+            setKey(x, j, key(x, j - 1));
+            setValue(x, j, value(x, j - 1));
+        }
+        setKey(x, i, key);
+        setValue(x, i, value);
+        setN(x, n(x) + 1);
+    }
+
+    // Moving the largest "degree - 1" keys of the full child at "position" to a new page, and its median up to "x"
+    private void split(int x, int position) {
+        int oldPage = child(x, position);
+        int newPage = allocate(leaf(oldPage));
+        for (int j = 0; j < degree - 1; j++) {
+            setKey(newPage, j, key(oldPage, j + degree));
+            setValue(newPage, j, value(oldPage, j + degree));
+        }
+        if (!leaf(oldPage)) {
+            for (int j = 0; j < degree; j++) {
+                setChild(newPage, j, child(oldPage, j + degree));
+            }
+        }
+        setN(newPage, degree - 1);
+        setN(oldPage, degree - 1);
+
+        int n = n(x);
+        for (int j = n; j > position; j--) {
+            setChild(x, j + 1, child(x, j));
+        }
+        setChild(x, position + 1, newPage);
+        for (int j = n - 1; j >= position; j--) {
+            setKey(x, j + 1, key(x, j));
+            setValue(x, j + 1, value(x, j));
+        }
+        setKey(x, position, key(oldPage, degree - 1));
+        setValue(x, position, value(oldPage, degree - 1));
+        setN(x, n + 1);
+    }
+
+    public void merge(Integer key, Integer value, BinaryOperator<Integer> remapping) {
+        int x = root;
+        while (true) {
+            int i = lowerBound(x, key);
+            if (i < n(x) && key(x, i) == key) {
+                setValue(x, i, remapping.apply(value(x, i), value));
+                return;
+            }
+            if (leaf(x)) break;
+            x = child(x, i);
+        }
+        addInt(key, value);
+    }
+
+    public Integer lookup(Integer key) {
+        int x = root;
+        while (true) {
+            int i = lowerBound(x, key);
+            if (i < n(x) && key(x, i) == key) return value(x, i);
+            if (leaf(x)) return null;
+            x = child(x, i);
+        }
+    }
+
+    public List<Integer> lookupRange(Integer from, Integer to) {
+        ArrayList<Integer> result = new ArrayList<>();
+        privateLookupRange(root, from, to, result);
+        return result;
+    }
+
+    private void privateLookupRange(int x, int from, int to, ArrayList<Integer> result) {
+        int entry;
+        for (entry = lowerBound(x, from); entry < n(x) && key(x, entry) <= to; entry++) {
+            if (!leaf(x)) privateLookupRange(child(x, entry), from, to, result);
+            result.add(value(x, entry));
+        }
+        if (!leaf(x)) privateLookupRange(child(x, entry), from, to, result);
+    }
+
+    // Folding values straight from the pages, without collecting them into a list first
+    public <A> A aggregateRange(Integer from, Integer to, Monoid<Integer, A> monoid) {
+        return privateAggregateRange(root, from, to, monoid, monoid.identity());
+    }
+
+    private <A> A privateAggregateRange(int x, int from, int to, Monoid<Integer, A> monoid, A result) {
+        int entry;
+        for (entry = lowerBound(x, from); entry < n(x) && key(x, entry) <= to; entry++) {
+            if (!leaf(x)) result = privateAggregateRange(child(x, entry), from, to, monoid, result);
+            result = monoid.combine(result, monoid.lift(value(x, entry)));
+        }
+        if (!leaf(x)) result = privateAggregateRange(child(x, entry), from, to, monoid, result);
+        return result;
+    }
+
+    // Index of the first key that is not less than "key"
+    private int lowerBound(int x, int key) {
+        int low = 0, high = n(x);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(x, middle) < key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    // Index of the first key that is greater than "key"
+    private int upperBound(int x, int key) {
+        int low = 0, high = n(x);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (key(x, middle) <= key) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    public int size() {
+        return numberOfKeys;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public boolean contains(Integer k) {
+        return lookup(k) != null;
+    }
+
+    // Writing the header and all changed pages to disk, evicted pages have already been written back
+    public void flush() throws IOException {
+        try {
+            cache.forEach((index, page) -> {
+                if (page.dirty) store(index, page);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        header.force();
+        channel.force(false);
+    }
+
+    public void close() throws IOException {
+        flush();
+        cache.clear();
+        lastIndex = -1;
+        lastPage = null;
+        channel.close();
+    }
+
+    // Number of bytes of a node with degree "t": number of keys, leaf flag, keys, values and children
+    private static int pageSize(int t) {
+        return KEYS_OFFSET + 4 * (2 * t - 1) + 4 * (2 * t - 1) + 4 * (2 * t);
+    }
+
+    // Pages are never freed, a new page is always appended at the end of the file
+    private int allocate(boolean leaf) {
+        int page = pages++;
+        setHeader(PAGES_OFFSET, pages);
+        setN(page, 0);
+        write(page, LEAF_OFFSET, leaf ? 1 : 0);
+        return page;
+    }
+
+    private int n(int page) {
+        return read(page, N_OFFSET);
+    }
+
+    private void setN(int page, int n) {
+        write(page, N_OFFSET, n);
+    }
+
+    private boolean leaf(int page) {
+        return read(page, LEAF_OFFSET) != 0;
+    }
+
+    private int key(int page, int i) {
+        return read(page, KEYS_OFFSET + 4 * i);
+    }
+
+    private void setKey(int page, int i, int key) {
+        write(page, KEYS_OFFSET + 4 * i, key);
+    }
+
+    private int value(int page, int i) {
+        return read(page, valuesOffset + 4 * i);
+    }
+
+    private void setValue(int page, int i, int value) {
+        write(page, valuesOffset + 4 * i, value);
+    }
+
+    private int child(int page, int i) {
+        return read(page, childrenOffset + 4 * i);
+    }
+
+    private void setChild(int page, int i, int child) {
+        write(page, childrenOffset + 4 * i, child);
+    }
+
+    private int header(int offset) {
+        return header.getInt(offset);
+    }
+
+    private void setHeader(int offset, int value) {
+        header.putInt(offset, value);
+    }
+
+    private int read(int page, int offset) {
+        return page(page).buffer.getInt(offset);
+    }
+
+    private void write(int page, int offset, int value) {
+        Page cached = page(page);
+        cached.buffer.putInt(offset, value);
+        cached.dirty = true;
+    }
+
+    // Reading "page" into the cache if it is not there yet, the least recently used page may be written back
+    private Page page(int index) {
+        if (index == lastIndex) return lastPage;
+        Page page = cache.get(index);
+        if (page == null) {
+            page = load(index);
+            cache.put(index, page);
+        }
+        lastIndex = index;
+        lastPage = page;
+        return page;
+    }
+
+    // Pages beyond the end of the file have not been written yet and are read as zeros
+    private Page load(int index) {
+        ByteBuffer buffer = ByteBuffer.allocate(pageSize);
+        long position = (long) index * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer, position + buffer.position()) < 0) break;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new Page(buffer);
+    }
+
+    // Writing a page back, which also extends the file when needed
+    private void store(int index, Page page) {
+        ByteBuffer buffer = page.buffer.duplicate();
+        buffer.clear();
+        long position = (long) index * pageSize;
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        page.dirty = false;
+    }
+}
+
+interface RangeMap<K, V> {
+    int size();
+    boolean isEmpty();
+    void add(K key, V value);
+    // Upsert: the existing value "old" of "key" is replaced with remapping(old, value), otherwise this is add
+    void merge(K key, V value, BinaryOperator<V> remapping);
+    boolean contains(K key);
+    V lookup(K key);
+    List<V> lookupRange(K from, K to);
+
+    // Iterating over values of keys in [from, to] in key order, by default over the result of lookupRange
+    default Iterator<V> rangeIterator(K from, K to) {
+        List<V> values = lookupRange(from, to);
+        return values == null ? Collections.emptyIterator() : values.iterator();
+    }
+
+    // Combining values of all keys in [from, to] in key order, by default by folding the result of lookupRange
+    default <A> A aggregateRange(K from, K to, Monoid<V, A> monoid) {
+        A result = monoid.identity();
+        List<V> values = lookupRange(from, to);
+        if (values == null) return result;
+        for (V value : values) {
+            result = monoid.combine(result, monoid.lift(value));
+        }
+        return result;
+    }
+}
+
+/*
+ Associative operation with identity over aggregates of values, used to augment range maps.
+ A tree uses its stored aggregates only for the same monoid instance it was created with
+ */
+interface Monoid<V, A> {
+    Monoid<Integer, Integer> INT_SUM = commutative(0, value -> value, Integer::sum);
+    Monoid<Long, Long> LONG_SUM = commutative(0L, value -> value, Long::sum);
+    Monoid<Object, Long> COUNT = commutative(0L, value -> 1L, Long::sum);
+    // Identity of min and max is null, which stands for an empty range
+    Monoid<Comparable<Object>, Comparable<Object>> MIN = commutative(null, value -> value, (first, second) ->
+            first == null ? second : second == null || first.compareTo(second) <= 0 ? first : second);
+    Monoid<Comparable<Object>, Comparable<Object>> MAX = commutative(null, value -> value, (first, second) ->
+            first == null ? second : second == null || first.compareTo(second) >= 0 ? first : second);
+
+    A identity();
+
+    // Aggregate of a single value
+    A lift(V value);
+
+    A combine(A first, A second);
+
+    // Whether values may be combined in any order, not only in key order
+    default boolean commutative() {
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> Monoid<V, Long> count() {
+        return (Monoid<V, Long>) COUNT;
+    }
+
+    // Shared instances, so trees and caches built with min() or max() recognize them by identity
+    @SuppressWarnings("unchecked")
+    static <V extends Comparable<V>> Monoid<V, V> min() {
+        return (Monoid<V, V>) (Monoid<?, ?>) MIN;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V extends Comparable<V>> Monoid<V, V> max() {
+        return (Monoid<V, V>) (Monoid<?, ?>) MAX;
+    }
+
+    static <V, A> Monoid<V, A> of(A identity, Function<V, A> lift, BinaryOperator<A> combine) {
+        return new Monoid<>() {
+            public A identity() {
+                return identity;
+            }
+
+            public A lift(V value) {
+                return lift.apply(value);
+            }
+
+            public A combine(A first, A second) {
+                return combine.apply(first, second);
+            }
+        };
+    }
+
+    static <V, A> Monoid<V, A> commutative(A identity, Function<V, A> lift, BinaryOperator<A> combine) {
+        return new Monoid<>() {
+            public A identity() {
+                return identity;
+            }
+
+            public A lift(V value) {
+                return lift.apply(value);
+            }
+
+            public A combine(A first, A second) {
+                return combine.apply(first, second);
+            }
+
+            public boolean commutative() {
+                return true;
+            }
+        };
+    }
+}
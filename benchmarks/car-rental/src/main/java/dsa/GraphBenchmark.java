@@ -0,0 +1,58 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Minimum spanning forest of the car rental graph. Sparse graphs have about 4 edges per vertex,
+ dense graphs connect every pair of vertices with probability 1/2
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GraphBenchmark {
+    private static final long SEED = 42;
+
+    @Param({"sparse", "dense"})
+    private String density;
+
+    @Param({"200", "1000"})
+    private int vertices;
+
+    private Graph<Pair<String, Double>, Double, String, Double> graph;
+    private FastWriter out;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        graph = new Graph<>();
+        ArrayList<Vertex<Pair<String, Double>>> inserted = new ArrayList<>(vertices);
+        for (int i = 0; i < vertices; i++) {
+            inserted.add(graph.insertVertex(new Pair<>("v" + i, 1.0 + random.nextInt(50))));
+        }
+
+        boolean dense = density.equals("dense");
+        double probability = dense ? 0.5 : 4.0 / vertices;
+        for (int i = 0; i < vertices; i++) {
+            for (int j = i + 1; j < vertices; j++) {
+                if (random.nextDouble() < probability) {
+                    graph.insertEdge(inserted.get(i), inserted.get(j), 1.0 + random.nextInt(1000));
+                }
+            }
+        }
+
+        out = new FastWriter(OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void msf() {
+        graph.msf(out);
+    }
+}
@@ -0,0 +1,82 @@
+package dsa;
+
+import java.util.ArrayList;
+
+/*
+ Original FraudDetection sort path over a list of boxed transactions, kept as a baseline for the benchmark:
+ a decimal LSD radix sort that allocates new Day objects in each of its eight passes
+ */
+class BoxedFraudDetection {
+    /* Linear based algorithm that is used to perform stable radix sort to sort transactions by date */
+    private static void countingSort(ArrayList<Day> arr, int currentDigit, int size) {
+        ArrayList<Day> result = new ArrayList<>();
+        int[] count = new int[10];
+
+        for (int z = 0; z < size; z++) {
+            result.add(new Day(0, 0));
+        }
+
+        for (int i = 0; i < size; i++) {
+            count[(arr.get(i).getDate() / currentDigit) % 10]++;
+        }
+
+        for (int i = 1; i < 10; i++) {
+            count[i] += count[i - 1];
+        }
+
+        for (int i = size - 1; i >= 0; i--) {
+            int date = arr.get(i).getDate(), digit = (date / currentDigit) % 10;
+            result.set(count[digit] - 1, new Day(date, arr.get(i).getTransaction()));
+            count[digit]--;
+        }
+
+        for (int i = 0; i < size; i++) {
+            arr.set(i, result.get(i));
+        }
+    }
+
+
+    public static void radixSort(ArrayList<Day> arr, int size) {
+        for (int digit = 1; digit < Math.pow(10, 8); digit *= 10) {
+            countingSort(arr, digit, size);
+        }
+    }
+
+    /* Sorting transactions by date and counting alerts against the median of "d" trailing days */
+    public static int countAlerts(ArrayList<Day> expenses, int d) {
+        radixSort(expenses, expenses.size());
+        FraudDetector detector = new FraudDetector(d, null);
+        ArrayList<Double> transactions = new ArrayList<>();
+
+        for (int i = 0; i < expenses.size(); i++) {
+            Day presentDay = expenses.get(i);
+            transactions.add(presentDay.getTransaction());
+            // Passing the day on once all of its transactions are collected
+            if (i == expenses.size() - 1 || !expenses.get(i + 1).getDate().equals(presentDay.getDate())) {
+                detector.day(presentDay.getDate(), transactions);
+                transactions.clear();
+            }
+        }
+        return detector.alerts();
+    }
+}
+
+
+/* A class used to store the date and transaction */
+class Day {
+    private final Integer date;
+    private final double transaction;
+
+    Day(Integer date, double transaction) {
+        this.date = date;
+        this.transaction = transaction;
+    }
+
+    double getTransaction() {
+        return this.transaction;
+    }
+
+    Integer getDate() {
+        return this.date;
+    }
+}
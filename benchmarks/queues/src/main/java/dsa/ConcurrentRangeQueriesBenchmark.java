@@ -0,0 +1,78 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Shared history read by reporting threads while one ingest thread keeps adding transactions.
+ "lookupRange" alone measures how reads scale with "-t", the "ingest" group runs them next to a writer
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentRangeQueriesBenchmark {
+    private static final long SEED = 42;
+    private static final int DAYS = 3650;
+
+    @Param({"20"})
+    private int degree;
+
+    @Param({"1000000"})
+    private int transactions;
+
+    private ConcurrentRangeQueries<Integer, Integer> history;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        history = new ConcurrentRangeQueries<>(degree);
+        for (int i = 0; i < transactions; i++) {
+            history.add(date(random.nextInt(DAYS)), random.nextInt(2000) - 1000);
+        }
+    }
+
+    // Turning a day number into a yyyyMMdd integer, as in RangeQueriesBenchmark
+    private static int date(int day) {
+        int year = 2010 + day / 336;
+        int month = 1 + day % 336 / 28;
+        return year * 10000 + month * 100 + 1 + day % 28;
+    }
+
+    // A week of transactions, short enough for the scan to finish between writes
+    private long weekStatement() {
+        int start = ThreadLocalRandom.current().nextInt(DAYS - 7);
+        List<Integer> balance = history.lookupRange(date(start), date(start + 7));
+        long sum = 0;
+        for (int transaction : balance) {
+            sum += transaction;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public long lookupRange() {
+        return weekStatement();
+    }
+
+    @Benchmark
+    @Group("ingest")
+    @GroupThreads(3)
+    public long statements() {
+        return weekStatement();
+    }
+
+    @Benchmark
+    @Group("ingest")
+    @GroupThreads(1)
+    public void add() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        history.add(date(random.nextInt(DAYS)), random.nextInt(2000) - 1000);
+    }
+}
@@ -0,0 +1,88 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ DaryPriorityQueue with different arities on the workloads of PriorityQueueBenchmark, so a 4-ary heap is compared
+ with a binary heap of the same structure and only the arity differs
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DaryPriorityQueueBenchmark {
+    private static final long SEED = 42;
+    private static final int MAX_PENALTY = 1 << 20;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    @Param({"2", "4", "8"})
+    private int arity;
+
+    private int[] penalties;
+    private String[] names;
+    private int next;
+
+    private DaryPriorityQueue<Integer, String> queue;
+    private ArrayList<DaryPriorityQueue<Integer, String>.DNode> handles;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        // Twice as many keys as in the queue, the second half is used for steady-state inserts
+        penalties = new int[2 * size];
+        names = new String[2 * size];
+        for (int i = 0; i < penalties.length; i++) {
+            penalties[i] = random.nextInt(MAX_PENALTY);
+            names[i] = "branch" + i;
+        }
+
+        queue = new DaryPriorityQueue<>(arity);
+        handles = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            DaryPriorityQueue<Integer, String>.DNode node = queue.new DNode(penalties[i], names[i]);
+            queue.insert(node);
+            handles.add(node);
+        }
+        next = size;
+    }
+
+    private int nextKey() {
+        if (++next == penalties.length) next = size;
+        return next;
+    }
+
+    @Benchmark
+    public DaryPriorityQueue<Integer, String> insert() {
+        DaryPriorityQueue<Integer, String> filled = new DaryPriorityQueue<>(arity);
+        for (int i = 0; i < size; i++) {
+            filled.insert(filled.new DNode(penalties[i], names[i]));
+        }
+        return filled;
+    }
+
+    @Benchmark
+    public Object hold() {
+        Object min = queue.extractMin().value;
+        int i = nextKey();
+        queue.insert(queue.new DNode(penalties[i], names[i]));
+        return min;
+    }
+
+    // Moving a random handle towards the root and back, so the heap stays the same between invocations
+    @Benchmark
+    public void decreaseKey() {
+        int i = nextKey() - size;
+        DaryPriorityQueue<Integer, String>.DNode node = handles.get(i);
+        Integer key = node.key;
+        queue.decreaseKey(node, key - penalties[i]);
+        queue.increaseKey(node, key);
+    }
+}
@@ -0,0 +1,105 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Fraud detection pipeline: radix sort of transactions by date followed by the trailing median loop.
+ Transactions are spread over two years in random order. The original list based sort (BoxedFraudDetection)
+ is compared with the byte-wise sort of primitive columns, run sequentially and in the fork-join pool.
+ For the multi-account engine the same transactions are spread over one account per ten transactions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FraudDetectionBenchmark {
+    private static final long SEED = 42;
+    private static final int DAYS = 730;
+    private static final int TRANSACTIONS_PER_ACCOUNT = 10;
+
+    @Param({"100000", "1000000"})
+    private int transactions;
+
+    @Param({"10", "100", "365"})
+    private int trailingDays;
+
+    private ArrayList<Day> expenses;
+    private int[] dates;
+    private double[] amounts;
+    private int[] accounts;
+    private int[] sortedDates;
+    private double[] sortedAmounts;
+    private final DateRadixSort sorter = new DateRadixSort();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        expenses = new ArrayList<>(transactions);
+        for (int i = 0; i < transactions; i++) {
+            int day = random.nextInt(DAYS);
+            // Every month is treated as having 28 days, so all generated dates are valid
+            int date = (2020 + day / 336) * 10000 + (1 + day % 336 / 28) * 100 + 1 + day % 28;
+            expenses.add(new Day(date, random.nextInt(20000) / 100.0));
+        }
+        dates = new int[transactions];
+        amounts = new double[transactions];
+        for (int i = 0; i < transactions; i++) {
+            dates[i] = expenses.get(i).getDate();
+            amounts[i] = expenses.get(i).getTransaction();
+        }
+        accounts = new int[transactions];
+        for (int i = 0; i < transactions; i++) {
+            accounts[i] = random.nextInt(transactions / TRANSACTIONS_PER_ACCOUNT);
+        }
+        sortedDates = new int[transactions];
+        sortedAmounts = new double[transactions];
+    }
+
+    // Restoring the unsorted columns, outside of the measured time
+    @Setup(Level.Invocation)
+    public void copyColumns() {
+        System.arraycopy(dates, 0, sortedDates, 0, transactions);
+        System.arraycopy(amounts, 0, sortedAmounts, 0, transactions);
+    }
+
+    @Benchmark
+    public ArrayList<Day> radixSort() {
+        ArrayList<Day> copy = new ArrayList<>(expenses);
+        BoxedFraudDetection.radixSort(copy, copy.size());
+        return copy;
+    }
+
+    @Benchmark
+    public int[] radixSortColumns() {
+        sorter.sort(sortedDates, sortedAmounts, transactions, false);
+        return sortedDates;
+    }
+
+    @Benchmark
+    public int[] radixSortColumnsParallel() {
+        sorter.sort(sortedDates, sortedAmounts, transactions, true);
+        return sortedDates;
+    }
+
+    @Benchmark
+    public int countAlerts() {
+        return BoxedFraudDetection.countAlerts(new ArrayList<>(expenses), trailingDays);
+    }
+
+    @Benchmark
+    public int countAlertsColumns() {
+        return FraudDetection.countAlerts(sortedDates, sortedAmounts, transactions, trailingDays);
+    }
+
+    @Benchmark
+    public int[] countAlertsAccounts() {
+        return AccountFraudDetection.countAlerts(accounts, transactions / TRANSACTIONS_PER_ACCOUNT,
+                dates, amounts, transactions, trailingDays);
+    }
+}
@@ -0,0 +1,117 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ Priority queues of TaskB: filling a queue, the "hold" model (extractMin followed by insert at a steady size)
+ and changing keys through handles.
+ DaryPriorityQueue is measured by DaryPriorityQueueBenchmark for every arity on the same workloads
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriorityQueueBenchmark {
+    private static final long SEED = 42;
+    private static final int MAX_PENALTY = 1 << 20;
+
+    @Param({"10000", "1000000"})
+    private int size;
+
+    private int[] penalties;
+    private String[] names;
+    private int next;
+
+    private PriorityQueue<Integer, String> binary;
+    private ArrayList<PriorityQueue<Integer, String>.BNode> handles;
+    private PairingHeap<Integer, String> pairing;
+    private IntKeyPriorityQueue<String> intKey;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(SEED);
+        // Twice as many keys as in the queue, the second half is used for steady-state inserts
+        penalties = new int[2 * size];
+        names = new String[2 * size];
+        for (int i = 0; i < penalties.length; i++) {
+            penalties[i] = random.nextInt(MAX_PENALTY);
+            names[i] = "branch" + i;
+        }
+
+        binary = new PriorityQueue<>();
+        handles = new ArrayList<>(size);
+        pairing = new PairingHeap<>();
+        intKey = new IntKeyPriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            PriorityQueue<Integer, String>.BNode node = binary.new BNode(penalties[i], names[i]);
+            binary.insert(node);
+            handles.add(node);
+            pairing.insert(pairing.new PNode(penalties[i], names[i]));
+            intKey.insert(penalties[i], names[i]);
+        }
+        next = size;
+    }
+
+    private int nextKey() {
+        if (++next == penalties.length) next = size;
+        return next;
+    }
+
+    @Benchmark
+    public PriorityQueue<Integer, String> insertBinary() {
+        PriorityQueue<Integer, String> queue = new PriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            queue.insert(queue.new BNode(penalties[i], names[i]));
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public IntKeyPriorityQueue<String> insertIntKey() {
+        IntKeyPriorityQueue<String> queue = new IntKeyPriorityQueue<>();
+        for (int i = 0; i < size; i++) {
+            queue.insert(penalties[i], names[i]);
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public Object holdBinary() {
+        Object min = binary.extractMin().value;
+        int i = nextKey();
+        binary.insert(binary.new BNode(penalties[i], names[i]));
+        return min;
+    }
+
+    @Benchmark
+    public Object holdPairing() {
+        Object min = pairing.extractMin().value;
+        int i = nextKey();
+        pairing.insert(pairing.new PNode(penalties[i], names[i]));
+        return min;
+    }
+
+    @Benchmark
+    public Object holdIntKey() {
+        Object min = intKey.extractMin();
+        int i = nextKey();
+        intKey.insert(penalties[i], names[i]);
+        return min;
+    }
+
+    // Moving a random handle towards the root and back, so the heap stays the same between invocations
+    @Benchmark
+    public void decreaseKeyBinary() {
+        int i = nextKey() - size;
+        PriorityQueue<Integer, String>.BNode node = handles.get(i);
+        Integer key = node.key;
+        binary.decreaseKey(node, key - penalties[i]);
+        binary.increaseKey(node, key);
+    }
+}
@@ -0,0 +1,225 @@
+package dsa;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ B-tree of the bank statement task at several degrees: building the history and range lookups over it.
+ Dates are yyyyMMdd integers of ten years, so most dates have several transactions
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RangeQueriesBenchmark {
+    private static final long SEED = 42;
+    private static final int DAYS = 3650;
+    private static final int QUERIES = 1024;
+
+    @Param({"2", "20", "100"})
+    private int degree;
+
+    @Param({"100000", "1000000"})
+    private int transactions;
+
+    private int[] dates;
+    private int[] amounts;
+    private int[] from;
+    private int[] to;
+    private Integer[] sortedDates;
+    private Integer[] sortedAmounts;
+    private int query;
+    private RangeQueries<Integer, Integer> history;
+    private RangeQueries<Integer, Integer> augmented;
+    private BPlusRangeQueries<Integer, Integer> bPlus;
+    private IntRangeQueries<Integer> intKeys;
+    private Path pagedFile;
+    private PagedRangeQueries paged;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        Random random = new Random(SEED);
+        dates = new int[transactions];
+        amounts = new int[transactions];
+        for (int i = 0; i < transactions; i++) {
+            dates[i] = date(random.nextInt(DAYS));
+            amounts[i] = random.nextInt(2000) - 1000;
+        }
+
+        // Ranges from a week up to a year
+        from = new int[QUERIES];
+        to = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            int start = random.nextInt(DAYS);
+            from[i] = date(start);
+            to[i] = date(Math.min(DAYS - 1, start + 7 + random.nextInt(358)));
+        }
+
+        // The same transactions ordered by date, as they come from a history file
+        Integer[] order = new Integer[transactions];
+        for (int i = 0; i < transactions; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Integer.compare(dates[a], dates[b]));
+        sortedDates = new Integer[transactions];
+        sortedAmounts = new Integer[transactions];
+        for (int i = 0; i < transactions; i++) {
+            sortedDates[i] = dates[order[i]];
+            sortedAmounts[i] = amounts[order[i]];
+        }
+
+        history = build(null);
+        augmented = build(Monoid.INT_SUM);
+        intKeys = buildIntKeys();
+        bPlus = new BPlusRangeQueries<>(degree);
+        for (int i = 0; i < transactions; i++) {
+            bPlus.add(dates[i], amounts[i]);
+        }
+
+        // The paged tree is written once and reopened, so queries start from pages on disk
+        pagedFile = Files.createTempFile("history", ".db");
+        Files.delete(pagedFile);
+        try (PagedRangeQueries tree = new PagedRangeQueries(pagedFile, degree)) {
+            for (int i = 0; i < transactions; i++) {
+                tree.addInt(dates[i], amounts[i]);
+            }
+        }
+        paged = new PagedRangeQueries(pagedFile, degree);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        paged.close();
+        Files.delete(pagedFile);
+    }
+
+    // Turning a day number into a yyyyMMdd integer, every month is treated as having 28 days
+    private static int date(int day) {
+        int year = 2010 + day / 336;
+        int month = 1 + day % 336 / 28;
+        return year * 10000 + month * 100 + 1 + day % 28;
+    }
+
+    private RangeQueries<Integer, Integer> build(Monoid<Integer, Integer> monoid) {
+        return build(monoid, false);
+    }
+
+    private RangeQueries<Integer, Integer> build(Monoid<Integer, Integer> monoid, boolean copyOnWrite) {
+        RangeQueries<Integer, Integer> tree = new RangeQueries<>(degree, monoid, copyOnWrite);
+        for (int i = 0; i < transactions; i++) {
+            tree.add(dates[i], amounts[i]);
+        }
+        return tree;
+    }
+
+    private IntRangeQueries<Integer> buildIntKeys() {
+        IntRangeQueries<Integer> tree = new IntRangeQueries<>(degree);
+        for (int i = 0; i < transactions; i++) {
+            tree.addInt(dates[i], amounts[i]);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public RangeQueries<Integer, Integer> add() {
+        return build(null);
+    }
+
+    @Benchmark
+    public RangeQueries<Integer, Integer> addAugmented() {
+        return build(Monoid.INT_SUM);
+    }
+
+    // Every insertion copies its path, as it does while snapshots are being read
+    @Benchmark
+    public RangeQueries<Integer, Integer> addCopyOnWrite() {
+        return build(null, true);
+    }
+
+    // Ingest through the memtable, including the final flush
+    @Benchmark
+    public BufferedRangeQueries<Integer, Integer> addBuffered() {
+        BufferedRangeQueries<Integer, Integer> tree = new BufferedRangeQueries<>(degree, Monoid.INT_SUM, 4096);
+        for (int i = 0; i < transactions; i++) {
+            tree.add(dates[i], amounts[i]);
+        }
+        tree.flush();
+        return tree;
+    }
+
+    @Benchmark
+    public RangeQueries<Integer, Integer> bulkLoad() {
+        return RangeQueries.bulkLoad(degree, null, sortedDates, sortedAmounts, 1.0);
+    }
+
+    @Benchmark
+    public RangeQueries<Integer, Integer> bulkLoadAugmented() {
+        return RangeQueries.bulkLoad(degree, Monoid.INT_SUM, sortedDates, sortedAmounts, 1.0);
+    }
+
+    @Benchmark
+    public long lookupRange() {
+        int i = query++ & (QUERIES - 1);
+        List<Integer> balance = history.lookupRange(from[i], to[i]);
+        long sum = 0;
+        for (int transaction : balance) {
+            sum += transaction;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int aggregateRange() {
+        int i = query++ & (QUERIES - 1);
+        return augmented.aggregateRange(from[i], to[i], Monoid.INT_SUM);
+    }
+
+    @Benchmark
+    public int aggregateRangePaged() {
+        int i = query++ & (QUERIES - 1);
+        return paged.aggregateRange(from[i], to[i], Monoid.INT_SUM);
+    }
+
+    @Benchmark
+    public long rangeIteratorBPlus() {
+        int i = query++ & (QUERIES - 1);
+        long sum = 0;
+        for (Iterator<Integer> balance = bPlus.rangeIterator(from[i], to[i]); balance.hasNext(); ) {
+            sum += balance.next();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public IntRangeQueries<Integer> addIntKeys() {
+        return buildIntKeys();
+    }
+
+    // Summing transactions of the same date into one entry, as Main does with "--accumulate"
+    @Benchmark
+    public IntRangeQueries<Integer> mergeIntKeys() {
+        IntRangeQueries<Integer> tree = new IntRangeQueries<>(degree, Monoid.INT_SUM);
+        for (int i = 0; i < transactions; i++) {
+            tree.mergeInt(dates[i], amounts[i], Integer::sum);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public long lookupRangeIntKeys() {
+        int i = query++ & (QUERIES - 1);
+        long sum = 0;
+        for (int transaction : intKeys.lookupRange(from[i], to[i])) {
+            sum += transaction;
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,205 @@
+package dsa;
+
+import org.junit.jupiter.api.RepeatedTest;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ ConcurrentRangeQueries with writers adding keys while readers scan and aggregate ranges.
+ Writer "w" adds keys w, w + WRITERS, w + 2 * WRITERS, ... in this order, so keys of all writers interleave
+ in the same leaves. As every operation should take effect at a single moment, every read has to see
+ a prefix of the keys of every writer, at least the adds that had returned before the read started,
+ and no less than an earlier read of the same thread. In the end the contents should equal a sequential map
+ */
+class ConcurrentRangeQueriesStressTest {
+    private static final int WRITERS = 4;
+    private static final int READERS = 4;
+    private static final int KEYS_PER_WRITER = 50_000;
+    private static final int MAX_KEY = WRITERS * KEYS_PER_WRITER - 1;
+    // Small nodes make splits frequent
+    private static final int DEGREE = 3;
+
+    // Number of keys of every writer and sum of their indices, so a prefix can be recognized from the aggregate
+    private static final Monoid<Long, long[]> PER_WRITER = Monoid.commutative(new long[2 * WRITERS], value -> {
+        long[] aggregate = new long[2 * WRITERS];
+        aggregate[writerOf(value)] = 1;
+        aggregate[WRITERS + writerOf(value)] = indexOf(value);
+        return aggregate;
+    }, (first, second) -> {
+        long[] aggregate = new long[2 * WRITERS];
+        for (int i = 0; i < aggregate.length; i++) aggregate[i] = first[i] + second[i];
+        return aggregate;
+    });
+
+    // Interleavings differ from run to run, so the scenario is repeated to make a race more likely to show up
+    @RepeatedTest(5)
+    @Timeout(value = 2, unit = TimeUnit.MINUTES)
+    void readsSeePrefixesOfConcurrentAdds() throws Exception {
+        ConcurrentRangeQueries<Integer, Long> map = new ConcurrentRangeQueries<>(DEGREE);
+        AtomicIntegerArray completed = new AtomicIntegerArray(WRITERS);
+        CyclicBarrier start = new CyclicBarrier(WRITERS + READERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> writers = new ArrayList<>();
+        List<Thread> readers = new ArrayList<>();
+
+        for (int w = 0; w < WRITERS; w++) {
+            int writer = w;
+            writers.add(new Thread(() -> {
+                await(start);
+                for (int i = 0; i < KEYS_PER_WRITER; i++) {
+                    int key = i * WRITERS + writer;
+                    map.add(key, (long) key);
+                    completed.set(writer, i + 1);
+                }
+            }));
+        }
+        for (int r = 0; r < READERS; r++) {
+            int reader = r;
+            readers.add(new Thread(() -> {
+                Random random = new Random(reader);
+                long[] seen = new long[WRITERS];
+                await(start);
+                boolean last = false;
+                while (!last) {
+                    last = allDone(completed);
+                    long[] before = progress(completed);
+                    long[][] bounds = switch (reader % 3) {
+                        case 0 -> scanAll(map);
+                        case 1 -> aggregateAll(map);
+                        default -> scanRange(map, random);
+                    };
+                    long[] after = progress(completed);
+                    for (int w = 0; w < WRITERS; w++) {
+                        long low = bounds[0][w], high = bounds[1][w];
+                        assertTrue(high >= before[w], "Read missed adds that had returned");
+                        assertTrue(low <= after[w] + 1, "Read saw adds that had not started");
+                        assertTrue(high >= seen[w], "Read went back in time");
+                        seen[w] = Math.max(seen[w], low);
+                    }
+                }
+            }));
+        }
+
+        List<Thread> threads = new ArrayList<>(writers);
+        threads.addAll(readers);
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get(), () -> "Thread failed: " + failure.get());
+
+        TreeMap<Integer, Long> model = new TreeMap<>();
+        for (int key = 0; key <= MAX_KEY; key++) model.put(key, (long) key);
+        assertEquals(model.size(), map.size());
+        assertEquals(new ArrayList<>(model.values()), map.lookupRange(0, MAX_KEY));
+        for (int key = 0; key <= MAX_KEY; key += 97) {
+            assertEquals(model.get(key), map.lookup(key));
+        }
+        assertFalse(map.contains(MAX_KEY + 1));
+    }
+
+    /*
+     Reads return the lowest and the highest number of keys every writer may have added at the moment of the read.
+     Reads of the whole map know the exact numbers
+     */
+    private static long[][] scanAll(ConcurrentRangeQueries<Integer, Long> map) {
+        long[] counts = new long[WRITERS];
+        long previous = -1;
+        for (long value : values(map, 0, MAX_KEY)) {
+            assertTrue(value > previous, "Values are not in key order");
+            previous = value;
+            int writer = writerOf(value);
+            assertEquals(counts[writer], indexOf(value), "Scan skipped a key of writer " + writer);
+            counts[writer]++;
+        }
+        return new long[][]{counts, counts};
+    }
+
+    private static long[][] aggregateAll(ConcurrentRangeQueries<Integer, Long> map) {
+        long[] aggregate = map.aggregateRange(0, MAX_KEY, PER_WRITER);
+        long[] counts = new long[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            long count = aggregate[w];
+            // Indices are distinct, so they are 0..count-1 exactly when they sum up to count * (count - 1) / 2
+            assertEquals(count * (count - 1) / 2, aggregate[WRITERS + w], "Aggregate is not a prefix of writer " + w);
+            counts[w] = count;
+        }
+        return new long[][]{counts, counts};
+    }
+
+    // A random range shows the keys of every writer from the first one in the range, without gaps
+    private static long[][] scanRange(ConcurrentRangeQueries<Integer, Long> map, Random random) {
+        int from = random.nextInt(MAX_KEY + 1);
+        int to = Math.min(MAX_KEY, from + random.nextInt(4096));
+        long[] first = new long[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            first[w] = Math.max(0, (from - w + WRITERS - 1) / WRITERS);
+        }
+        long[] next = first.clone();
+
+        long previous = from - 1;
+        for (long value : values(map, from, to)) {
+            assertTrue(value > previous && value <= to, "Value out of range or order");
+            previous = value;
+            int writer = writerOf(value);
+            assertEquals(next[writer], indexOf(value), "Range skipped a key of writer " + writer);
+            next[writer]++;
+        }
+        // Keys of a writer that stop within the range give an upper bound, and a lower bound if any of them was seen
+        long[] low = new long[WRITERS];
+        long[] high = new long[WRITERS];
+        for (int w = 0; w < WRITERS; w++) {
+            boolean stopped = next[w] * WRITERS + w <= to;
+            low[w] = next[w] == first[w] ? 0 : next[w];
+            high[w] = stopped ? next[w] : Long.MAX_VALUE;
+        }
+        return new long[][]{low, high};
+    }
+
+    private static List<Long> values(ConcurrentRangeQueries<Integer, Long> map, int from, int to) {
+        List<Long> values = map.lookupRange(from, to);
+        return values == null ? List.of() : values;
+    }
+
+    private static long[] progress(AtomicIntegerArray completed) {
+        long[] progress = new long[WRITERS];
+        for (int w = 0; w < WRITERS; w++) progress[w] = completed.get(w);
+        return progress;
+    }
+
+    private static boolean allDone(AtomicIntegerArray completed) {
+        for (int w = 0; w < WRITERS; w++) {
+            if (completed.get(w) < KEYS_PER_WRITER) return false;
+        }
+        return true;
+    }
+
+    private static int writerOf(long value) {
+        return (int) (value % WRITERS);
+    }
+
+    private static long indexOf(long value) {
+        return value / WRITERS;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package dsa;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ MultiQueue under many producer and consumer threads: every inserted item has to be extracted exactly once,
+ while keys change concurrently. After a concurrent fill, extracted items have to stay within the rank error
+ documented on the class, which holds for every extraction with high probability, so rare larger ranks are allowed
+ */
+class MultiQueueStressTest {
+    private static final int PRODUCERS = 6;
+    private static final int CONSUMERS = 6;
+    private static final int ITEMS_PER_PRODUCER = 100_000;
+    private static final int STRIPES = 2 * (PRODUCERS + CONSUMERS);
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.MINUTES)
+    void everyItemIsExtractedExactlyOnce() throws Exception {
+        MultiQueue<Integer, Integer> queue = new MultiQueue<>(STRIPES);
+        CyclicBarrier start = new CyclicBarrier(PRODUCERS + CONSUMERS);
+        AtomicInteger producing = new AtomicInteger(PRODUCERS);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<List<Integer>> consumed = new ArrayList<>();
+        List<Thread> threads = new ArrayList<>();
+
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            threads.add(new Thread(() -> {
+                Random random = new Random(producer);
+                List<MultiQueue<Integer, Integer>.MNode> handles = new ArrayList<>();
+                await(start);
+                for (int i = 0; i < ITEMS_PER_PRODUCER; i++) {
+                    // Values identify items, keys repeat and some of them change while consumers take items
+                    MultiQueue<Integer, Integer>.MNode node = queue.new MNode(random.nextInt(1 << 16), producer * ITEMS_PER_PRODUCER + i);
+                    queue.insert(node);
+                    handles.add(node);
+                    if (i % 8 == 7) {
+                        MultiQueue<Integer, Integer>.MNode changed = handles.get(random.nextInt(handles.size()));
+                        try {
+                            if (random.nextBoolean()) {
+                                queue.decreaseKey(changed, random.nextInt(1 << 16));
+                            } else {
+                                queue.increaseKey(changed, random.nextInt(1 << 16));
+                            }
+                        } catch (NoSuchElementException e) {
+                            // The item has already been taken by a consumer
+                        }
+                    }
+                }
+                producing.decrementAndGet();
+            }));
+        }
+        for (int c = 0; c < CONSUMERS; c++) {
+            List<Integer> values = new ArrayList<>();
+            consumed.add(values);
+            threads.add(new Thread(() -> {
+                await(start);
+                while (true) {
+                    boolean finished = producing.get() == 0;
+                    MultiQueue<Integer, Integer>.MNode node = queue.poll();
+                    if (node != null) {
+                        values.add(node.value);
+                    } else if (finished) {
+                        break;
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.setUncaughtExceptionHandler((t, e) -> failure.compareAndSet(null, e));
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertNull(failure.get(), () -> "Thread failed: " + failure.get());
+
+        boolean[] seen = new boolean[PRODUCERS * ITEMS_PER_PRODUCER];
+        int total = 0;
+        for (List<Integer> values : consumed) {
+            for (int value : values) {
+                assertFalse(seen[value], () -> "Item " + value + " was extracted twice");
+                seen[value] = true;
+                total++;
+            }
+        }
+        assertEquals(seen.length, total, "Items were lost");
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    @Timeout(value = 2, unit = TimeUnit.MINUTES)
+    void rankErrorStaysWithinBound() throws Exception {
+        int size = PRODUCERS * ITEMS_PER_PRODUCER;
+        MultiQueue<Integer, Integer> queue = new MultiQueue<>(STRIPES);
+        CyclicBarrier start = new CyclicBarrier(PRODUCERS);
+        List<Thread> producers = new ArrayList<>();
+        for (int p = 0; p < PRODUCERS; p++) {
+            int producer = p;
+            producers.add(new Thread(() -> {
+                await(start);
+                // Keys are a permutation of 0..size-1, every producer inserts every PRODUCERS-th key
+                for (int key = producer; key < size; key += PRODUCERS) {
+                    queue.insert(queue.new MNode(key, key));
+                }
+            }));
+        }
+        for (Thread thread : producers) thread.start();
+        for (Thread thread : producers) thread.join();
+
+        // Extracting in one thread, while nothing changes, so the rank of every extracted key is well defined.
+        // Rank of an extracted key is the number of keys still in the queue that are lower, counted by a Fenwick tree
+        int[] tree = new int[size + 1];
+        for (int key = 0; key < size; key++) add(tree, key, 1);
+        double bound = 2 * STRIPES * Math.log(STRIPES) / Math.log(2);
+        long rankSum = 0;
+        int aboveBound = 0;
+        for (int i = 0; i < size; i++) {
+            int key = queue.extractMin().key;
+            int rank = countBelow(tree, key);
+            add(tree, key, -1);
+            rankSum += rank;
+            if (rank > bound) aboveBound++;
+        }
+
+        // Expected rank is O(s) for "s" stripes, and a rank above O(s log s) should be rare, checked with a factor of 2
+        double meanRank = (double) rankSum / size;
+        int rare = aboveBound;
+        assertTrue(meanRank <= 2 * STRIPES, () -> "Mean rank " + meanRank);
+        assertTrue(rare <= size / 100, () -> rare + " ranks above " + bound);
+        assertTrue(queue.isEmpty());
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void add(int[] tree, int key, int delta) {
+        for (int i = key + 1; i < tree.length; i += i & -i) tree[i] += delta;
+    }
+
+    private static int countBelow(int[] tree, int key) {
+        int count = 0;
+        for (int i = key; i > 0; i -= i & -i) count += tree[i];
+        return count;
+    }
+}
@@ -0,0 +1,57 @@
+package dsa;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/*
+ RadixHeap keys have to stay at or above the last extracted minimum. A key change below it, through decreaseKey
+ or increaseKey, either switches the heap to the binary heap or is rejected, but never puts an item in a wrong bucket
+ */
+class RadixHeapTest {
+
+    @Test
+    void increaseKeyBelowLastMinimumFallsBack() {
+        RadixHeap<Integer> heap = new RadixHeap<>(true);
+        RadixHeap<Integer>.RNode moved = heap.new RNode(100, 0);
+        heap.insert(moved);
+        for (int i = 1; i <= 20; i++) {
+            heap.insert(heap.new RNode(10 + i, i));
+        }
+        assertEquals(11, heap.extractMin().key);
+        assertEquals(12, heap.extractMin().key);
+
+        // An increaseKey call that actually lowers the key below the last extracted minimum
+        heap.increaseKey(moved, 5);
+        assertTrue(heap.isFallback());
+        assertSame(moved, heap.findMin());
+
+        int previous = Integer.MIN_VALUE;
+        int count = 0;
+        while (!heap.isEmpty()) {
+            int key = heap.extractMin().key;
+            assertTrue(key >= previous, "Keys are not extracted in order");
+            previous = key;
+            count++;
+        }
+        assertEquals(19, count);
+    }
+
+    @Test
+    void increaseKeyBelowLastMinimumIsRejectedWithoutFallback() {
+        RadixHeap<Integer> heap = new RadixHeap<>();
+        RadixHeap<Integer>.RNode moved = heap.new RNode(100, 0);
+        heap.insert(moved);
+        heap.insert(heap.new RNode(10, 1));
+        heap.insert(heap.new RNode(20, 2));
+        assertEquals(10, heap.extractMin().key);
+
+        assertThrows(IllegalArgumentException.class, () -> heap.increaseKey(moved, 5));
+        assertFalse(heap.isFallback());
+        // The rejected change left the heap as it was
+        assertEquals(20, heap.extractMin().key);
+        assertSame(moved, heap.extractMin());
+        assertEquals(100, moved.key);
+        assertTrue(heap.isEmpty());
+    }
+}